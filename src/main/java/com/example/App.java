@@ -1,14 +1,37 @@
 package com.example;
 
 import com.couchbase.client.core.msg.kv.DurabilityLevel;
+import com.couchbase.client.java.ReactiveCollection;
 import com.example.couchbase.CouchbaseClients;
 import com.example.crypto.Encryptor;
+import com.example.crypto.IvSource;
 import com.example.crypto.KeyScanPiiEncryptor;
+import com.example.crypto.PiiEncryptor;
+import com.example.crypto.PiiFieldMatcher;
+import com.example.crypto.PiiKeyPrefilter;
+import com.example.crypto.PiiPathTrie;
+import com.example.crypto.SplicingPiiEncryptor;
+import com.example.crypto.StreamingPiiEncryptor;
+import com.example.migrate.ErrorClassifier;
+import com.example.migrate.KeyRangePlanner;
 import com.example.migrate.MigrationJob;
+import com.example.migrate.RetryPolicy;
+import com.example.migrate.ScanBatchTuner;
+import com.example.migrate.SourceReader;
+import com.example.ops.AdaptiveConcurrencyLimiter;
+import com.example.ops.AsyncCheckpointer;
 import com.example.ops.CheckpointStore;
+import com.example.ops.CircuitBreaker;
+import com.example.ops.CpuPool;
+import com.example.ops.GracefulShutdown;
 import com.example.ops.KillSwitch;
+import com.example.ops.LatencyTracker;
+import com.example.ops.QuarantineLog;
+import com.example.ops.QuarantineSink;
+import com.example.ops.QuarantineStore;
 import com.example.ops.QuarantineWriter;
 import com.example.ops.RateLimiter;
+import com.example.ops.RetryBudget;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.io.InputStream;
@@ -20,6 +43,7 @@ import java.security.Key;
 import java.security.KeyStore;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
@@ -43,6 +67,7 @@ public final class App {
     public static void main(String[] args) {
         Instant startedAt = Instant.now();
         String runId = UUID.randomUUID().toString();
+        GracefulShutdown shutdown = null;
 
         try {
             Properties props = loadProperties(resolvePropertiesPath());
@@ -52,11 +77,13 @@ public final class App {
             SecretKey secretKey = loadSecretKey(keystoreConfig);
             String keyId = keystoreConfig.keyId();
 
-            Encryptor encryptor = new Encryptor(secretKey, keyId);
-            KeyScanPiiEncryptor piiEncryptor = new KeyScanPiiEncryptor(
-                    encryptor,
+            Encryptor encryptor = new Encryptor(secretKey, keyId, createIvSource(props, keyId));
+            PiiFieldMatcher fieldMatcher = new PiiFieldMatcher(
                     piiConfig.keys(),
-                    piiConfig.regex());
+                    piiConfig.regex(),
+                    parseInt(props, "pii.fieldMatcher.cacheSize", PiiFieldMatcher.DEFAULT_MAX_CACHE_ENTRIES));
+            PiiEncryptor piiEncryptor = createPiiEncryptor(encryptor, fieldMatcher, piiConfig.paths(), piiConfig.rewriteMode());
+            PiiKeyPrefilter prefilter = createPrefilter(props, piiConfig);
 
             CouchbaseClients.EnvironmentConfig env = new CouchbaseClients.EnvironmentConfig(
                     parseDuration(props, "couchbase.kvTimeout", Duration.ofSeconds(2)),
@@ -81,17 +108,22 @@ public final class App {
                     requireProperty(props, "destination.couchbase.scope"),
                     requireProperty(props, "destination.couchbase.collection"));
 
-            RateLimiter rateLimiter = createRateLimiter(props);
+            MigrationJob.RateLimits rateLimits = createRateLimits(props);
+            RetryBudget retryBudget = createRetryBudget(props);
+            MigrationJob.RetryPolicies retryPolicies = createRetryPolicies(props, retryBudget);
+            MigrationJob.CircuitBreakers circuitBreakers = createCircuitBreakers(props);
+            circuitBreakers.get().onTransition(App::logBreakerTransition);
+            circuitBreakers.upsert().onTransition(App::logBreakerTransition);
             CheckpointStore checkpointStore = new CheckpointStore(Path.of(requireProperty(props, "migration.checkpoint.path")));
-            QuarantineWriter quarantineWriter = new QuarantineWriter(Path.of(requireProperty(props, "migration.quarantine.path")));
-
-            boolean killSwitchEnabled = parseBoolean(props, "migration.killSwitch.enabled", false);
-            KillSwitch killSwitch = new KillSwitch(Path.of(requireProperty(props, "migration.killSwitch.path")), killSwitchEnabled);
 
             boolean dryRun = parseBoolean(props, "migration.dryRun", true);
             int maxInFlight = parseInt(props, "migration.concurrency.max", 32);
+            AdaptiveConcurrencyLimiter concurrencyLimiter = createConcurrencyLimiter(props, maxInFlight);
             int checkpointEvery = parseInt(props, "migration.checkpoint.every", 1000);
             DurabilityLevel durability = parseDurability(props);
+            MigrationJob.ScanMode scanMode = parseScanMode(props);
+            RunMode runMode = parseRunMode(props);
+            ScanBatchTuner scanBatchTuner = createScanBatchTuner(props);
 
             String configChecksum = configChecksum(props, keyId, durability, dryRun, maxInFlight, checkpointEvery);
 
@@ -102,33 +134,119 @@ public final class App {
             audit.put("keyId", keyId);
             audit.put("durability", durability.toString());
             audit.put("dryRun", dryRun);
+            audit.put("piiRewriteMode", piiConfig.rewriteMode().toString());
+            audit.put("ivSource", encryptor.ivSource().name());
+            audit.put("prefilterEnabled", prefilter.enabled());
+            audit.put("runMode", runMode.toString());
+            audit.put("scanMode", scanMode.toString());
 
-            try (CouchbaseClients clients = CouchbaseClients.connect(env, sourceCfg, destCfg)) {
+            try (KillSwitch killSwitch = createKillSwitch(props);
+                    CpuPool encryptPool = CpuPool.create(
+                            "pii-encrypt",
+                            parseInt(props, "migration.encrypt.threads", Runtime.getRuntime().availableProcessors()),
+                            parseInt(props, "migration.encrypt.queueCapacity", maxInFlight));
+                    AsyncCheckpointer checkpointer = createCheckpointer(props, checkpointStore);
+                    QuarantineSink quarantineSink = createQuarantineSink(props);
+                    CouchbaseClients clients = CouchbaseClients.connect(env, sourceCfg, destCfg)) {
+                SourceReader sourceReader = createSourceReader(props, clients.sourceReactiveCollection());
                 MigrationJob job = new MigrationJob(
                         clients.sourceReactiveCollection(),
+                        sourceReader,
                         clients.destinationReactiveCollection(),
                         piiEncryptor,
-                        rateLimiter,
-                        checkpointStore,
-                        quarantineWriter,
+                        prefilter,
+                        encryptPool,
+                        rateLimits,
+                        concurrencyLimiter,
+                        retryPolicies,
+                        circuitBreakers,
+                        checkpointer,
+                        quarantineSink,
                         killSwitch,
-                        new MigrationJob.Config(maxInFlight, checkpointEvery, dryRun, durability));
+                        createKeyRangePlanner(props),
+                        scanBatchTuner,
+                        new MigrationJob.Config(maxInFlight, checkpointEvery, dryRun, durability, scanMode));
+                Map<String, Object> auditAtStart = new LinkedHashMap<>(audit);
+                shutdown = GracefulShutdown.install(
+                        parseDuration(props, "migration.shutdown.drainTimeout", Duration.ofSeconds(20)),
+                        () -> {
+                            log.warn("Shutdown requested; stopping the run and draining in-flight documents");
+                            job.requestStop();
+                        },
+                        () -> writeInterruptedAudit(props, runId, auditAtStart, job, quarantineSink));
+
+                Map<String, Object> replayMetrics = null;
+                if (runMode == RunMode.REPLAY) {
+                    try (QuarantineStore store = QuarantineStore.open(
+                            Path.of(requireProperty(props, "migration.quarantine.path")))) {
+                        List<String> pending = store.pendingIds();
+                        log.info("Replaying {} quarantined document IDs", pending.size());
+                        MigrationJob.ReplayResult result = job.replay(pending, store::markResolved).block();
+                        if (result == null) {
+                            throw new IllegalStateException("Replay completed without result");
+                        }
+                        audit.put("endedAt", Instant.now().toString());
+                        audit.put("counts", Map.of(
+                                "replayed", result.replayed(),
+                                "written", result.written(),
+                                "quarantined", result.quarantined()));
+                        replayMetrics = store.metrics();
+                    }
+                } else {
+                    CheckpointStore.Checkpoint finalCheckpoint = job.run().block();
+                    if (finalCheckpoint == null) {
+                        throw new IllegalStateException("Migration completed without checkpoint");
+                    }
 
-                CheckpointStore.Checkpoint finalCheckpoint = job.run().block();
-                if (finalCheckpoint == null) {
-                    throw new IllegalStateException("Migration completed without checkpoint");
+                    audit.put("endedAt", Instant.now().toString());
+                    audit.put("counts", checkpointCounts(finalCheckpoint));
+                }
+                // Once finished() is called an interrupted JVM may halt before the resources below are closed, so
+                // everything that must survive (quarantine records, checkpoint) is made durable here, not in close().
+                quarantineSink.flush();
+                checkpointer.flush();
+                audit.put("fieldMatcherCache", Map.of(
+                        "hits", fieldMatcher.cacheHits(),
+                        "misses", fieldMatcher.cacheMisses(),
+                        "entries", fieldMatcher.cacheSize()));
+                Map<String, Object> metrics = new LinkedHashMap<>();
+                metrics.put("encryptPool", encryptPool.metrics());
+                metrics.put("concurrency", concurrencyLimiter.metrics());
+                metrics.put("scanBatch", scanBatchTuner.metrics());
+                metrics.put("sourceReads", sourceReader.metrics());
+                metrics.put("checkpoints", checkpointer.metrics());
+                metrics.put("quarantine", quarantineSink.metrics());
+                if (replayMetrics != null) {
+                    metrics.put("replay", replayMetrics);
                 }
+                metrics.put("circuitBreakers", Map.of(
+                        "get", circuitBreakers.get().metrics(),
+                        "upsert", circuitBreakers.upsert().metrics()));
+                metrics.put("retries", Map.of(
+                        "get", retryPolicies.get().metrics(),
+                        "upsert", retryPolicies.upsert().metrics(),
+                        "budget", retryBudget.metrics()));
+                audit.put("metrics", metrics);
+                log.info("Encrypt pool: {}", encryptPool.metrics());
+                log.info("Concurrency: {}", concurrencyLimiter.metrics());
+                log.info("Scan batching: {}", scanBatchTuner.metrics());
+                log.info("Source reads: {}", sourceReader.metrics());
+                log.info("Retries: get={}, upsert={}, budget={}",
+                        retryPolicies.get().metrics(), retryPolicies.upsert().metrics(), retryBudget.metrics());
+                log.info(
+                        "Field matcher cache: hits={}, misses={}, entries={}",
+                        fieldMatcher.cacheHits(),
+                        fieldMatcher.cacheMisses(),
+                        fieldMatcher.cacheSize());
 
-                audit.put("endedAt", Instant.now().toString());
-                audit.put("counts", Map.of(
-                        "scanned", finalCheckpoint.scanned(),
-                        "encrypted", finalCheckpoint.encrypted(),
-                        "written", finalCheckpoint.written(),
-                        "quarantined", finalCheckpoint.quarantined()));
+                audit.put("status", shutdown.requested() ? "interrupted" : "completed");
+                writeAudit(props, runId, audit);
+                shutdown.finished();
             }
-
-            writeAudit(props, runId, audit);
         } catch (Exception e) {
+            if (shutdown != null) {
+                shutdown.finished();
+            }
             log.error(
                     "Migration run failed (runId={}, exceptionClass={}, exceptionMessageSha256={})",
                     runId,
@@ -175,10 +293,14 @@ public final class App {
 
         List<String> piiKeys = parseCsvList(props.getProperty("pii.keys"));
         Pattern piiRegex = compileOptionalRegex(props.getProperty("pii.keyRegex"));
-        if (piiKeys.isEmpty() && piiRegex == null) {
-            throw new IllegalArgumentException("Refusing to run: configure pii.keys and/or pii.keyRegex");
+        PiiPathTrie piiPaths = PiiPathTrie.compile(parseCsvList(props.getProperty("pii.paths")));
+        if (piiKeys.isEmpty() && piiRegex == null && piiPaths.isEmpty()) {
+            throw new IllegalArgumentException("Refusing to run: configure pii.keys, pii.keyRegex and/or pii.paths");
         }
 
+        PiiRewriteMode rewriteMode = parsePiiRewriteMode(props);
+        parseIvSourceMode(props);
+
         requireProperty(props, "source.couchbase.connectionString");
         requireProperty(props, "source.couchbase.bucket");
         requireProperty(props, "source.couchbase.scope");
@@ -195,19 +317,178 @@ public final class App {
 
         requireProperty(props, "migration.checkpoint.path");
         requireProperty(props, "migration.quarantine.path");
+        parseQuarantineMode(props);
+        parseRunMode(props);
+        if (parseInt(props, "migration.quarantine.log.segmentBytes", 64 * 1024 * 1024) <= 0
+                || parseInt(props, "migration.quarantine.log.bufferCapacity", 8192) <= 0) {
+            throw new IllegalArgumentException("migration.quarantine.log.segmentBytes and bufferCapacity must be > 0");
+        }
         requireProperty(props, "migration.killSwitch.path");
+        if (parseDuration(props, "migration.shutdown.drainTimeout", Duration.ofSeconds(20)).isNegative()) {
+            throw new IllegalArgumentException("migration.shutdown.drainTimeout must be >= 0");
+        }
+        Duration killSwitchPoll = parseDuration(props, "migration.killSwitch.pollInterval", Duration.ofSeconds(1));
+        if (killSwitchPoll.isNegative() || killSwitchPoll.isZero()) {
+            throw new IllegalArgumentException("migration.killSwitch.pollInterval must be > 0");
+        }
         requireProperty(props, "migration.durability");
         parseDurability(props);
 
-        return new PiiConfig(piiKeys, piiRegex);
+        createRateLimits(props);
+        createRetryPolicies(props, createRetryBudget(props));
+        createCircuitBreakers(props);
+        parseFsyncPolicy(props);
+        if (parseDuration(props, "migration.checkpoint.flushInterval", Duration.ofSeconds(1)).isNegative()
+                || parseDuration(props, "migration.checkpoint.fsyncInterval", Duration.ofSeconds(5)).isNegative()) {
+            throw new IllegalArgumentException("migration.checkpoint.flushInterval and fsyncInterval must be >= 0");
+        }
+
+        createKeyRangePlanner(props);
+        parseScanMode(props);
+        createScanBatchTuner(props);
+        parseReadMode(props);
+        createHedgeLatencyTracker(props);
+        if (parseDuration(props, "migration.read.hedge.minDelay", Duration.ofMillis(1)).isNegative()) {
+            throw new IllegalArgumentException("migration.read.hedge.minDelay must be >= 0");
+        }
+
+        int maxInFlight = parseInt(props, "migration.concurrency.max", 32);
+        createConcurrencyLimiter(props, maxInFlight);
+        if (parseInt(props, "migration.encrypt.threads", 1) <= 0) {
+            throw new IllegalArgumentException("migration.encrypt.threads must be > 0");
+        }
+        if (parseInt(props, "migration.encrypt.queueCapacity", maxInFlight) < maxInFlight) {
+            throw new IllegalArgumentException(
+                    "migration.encrypt.queueCapacity must be >= migration.concurrency.max (" + maxInFlight + ")");
+        }
+
+        return new PiiConfig(piiKeys, piiRegex, piiPaths, rewriteMode);
+    }
+
+    private static PiiEncryptor createPiiEncryptor(
+            Encryptor encryptor, PiiFieldMatcher fieldMatcher, PiiPathTrie paths, PiiRewriteMode rewriteMode) {
+        ObjectMapper mapper = new ObjectMapper();
+        return switch (rewriteMode) {
+            case TREE -> new KeyScanPiiEncryptor(encryptor, fieldMatcher, paths, mapper);
+            case STREAMING -> new StreamingPiiEncryptor(encryptor, fieldMatcher, paths, mapper);
+            case SPLICE -> new SplicingPiiEncryptor(encryptor, fieldMatcher, paths, mapper);
+        };
+    }
+
+    enum IvSourceMode {
+        RANDOM,
+        THREAD_LOCAL,
+        DETERMINISTIC
+    }
+
+    private static IvSourceMode parseIvSourceMode(Properties props) {
+        String raw = props.getProperty("crypto.ivSource");
+        if (raw == null || raw.isBlank()) {
+            return IvSourceMode.RANDOM;
+        }
+        try {
+            return IvSourceMode.valueOf(raw.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                    "Invalid crypto.ivSource: " + raw + " (expected one of random, thread-local, deterministic)");
+        }
+    }
+
+    /**
+     * {@code deterministic} keeps its fixed field and counter in {@code crypto.ivState.dir} (default: the checkpoint's
+     * directory), one file per key ID, so the invocation limit and IV uniqueness hold across runs. Its lock is held
+     * until the JVM exits, so a second run with the same key and state directory fails at startup.
+     */
+    private static IvSource createIvSource(Properties props, String keyId) {
+        return switch (parseIvSourceMode(props)) {
+            case RANDOM -> IvSource.sharedRandom(new SecureRandom());
+            case THREAD_LOCAL -> IvSource.threadLocalRandom();
+            case DETERMINISTIC -> IvSource.deterministic(ivStateFile(props, keyId), keyId, new SecureRandom());
+        };
+    }
+
+    private static Path ivStateFile(Properties props, String keyId) {
+        String dir = props.getProperty("crypto.ivState.dir");
+        Path base = dir == null || dir.isBlank()
+                ? Path.of(requireProperty(props, "migration.checkpoint.path")).toAbsolutePath().getParent()
+                : Path.of(dir.trim());
+        // The file records the exact key ID: two IDs that sanitize to one name fail on load instead of sharing it.
+        return base.resolve("iv-counter-" + keyId.replaceAll("[^A-Za-z0-9._-]", "_") + ".json");
+    }
+
+
+    /**
+     * Explicit {@code migration.scan.boundaries} win; otherwise {@code migration.scan.partitions > 1} samples
+     * {@code migration.scan.sampleSize} IDs to pick split points.
+     */
+    private static KeyRangePlanner createKeyRangePlanner(Properties props) {
+        List<String> boundaries = parseCsvList(props.getProperty("migration.scan.boundaries"));
+        if (!boundaries.isEmpty()) {
+            return KeyRangePlanner.explicit(boundaries);
+        }
+        int partitions = parseInt(props, "migration.scan.partitions", 1);
+        return KeyRangePlanner.sampling(partitions, parseInt(props, "migration.scan.sampleSize", 10_000));
+    }
+
+    /**
+     * Fixed at {@code migration.concurrency.max}, or AIMD between {@code migration.concurrency.min} and that
+     * ceiling when {@code migration.concurrency.adaptive=true}.
+     */
+    private static AdaptiveConcurrencyLimiter createConcurrencyLimiter(Properties props, int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("migration.concurrency.max must be > 0");
+        }
+        if (!parseBoolean(props, "migration.concurrency.adaptive", false)) {
+            return AdaptiveConcurrencyLimiter.fixed(maxInFlight);
+        }
+        int min = parseInt(props, "migration.concurrency.min", 1);
+        int initial = parseInt(props, "migration.concurrency.initial", Math.max(min, maxInFlight / 4));
+        try {
+            return AdaptiveConcurrencyLimiter.adaptive(initial, min, maxInFlight);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                    "Invalid adaptive concurrency: require 0 < migration.concurrency.min <= migration.concurrency.initial"
+                            + " <= migration.concurrency.max");
+        }
+    }
+
+    private static PiiKeyPrefilter createPrefilter(Properties props, PiiConfig piiConfig) {
+        if (!parseBoolean(props, "pii.prefilter.enabled", false)) {
+            return PiiKeyPrefilter.disabled();
+        }
+        PiiKeyPrefilter prefilter = PiiKeyPrefilter.compile(piiConfig.keys(), piiConfig.regex(), piiConfig.paths());
+        if (!prefilter.enabled()) {
+            log.warn("pii.prefilter.enabled=true but the PII rules cannot be checked on raw bytes; every document will be parsed");
+        }
+        return prefilter;
+    }
+
+    /**
+     * Builds the read/write token buckets from {@code migration.rateLimit.{read,write}.*}. The legacy
+     * {@code migration.rateLimit.permitsPerSecond} is the default document rate for both directions.
+     */
+    static MigrationJob.RateLimits createRateLimits(Properties props) {
+        double legacyPermits = parseDouble(props, "migration.rateLimit.permitsPerSecond", 0d);
+        return new MigrationJob.RateLimits(
+                createRateLimiter(props, "migration.rateLimit.read.permitsPerSecond", legacyPermits, "migration.rateLimit.read.burst"),
+                createRateLimiter(props, "migration.rateLimit.read.bytesPerSecond", 0d, "migration.rateLimit.read.burstBytes"),
+                createRateLimiter(props, "migration.rateLimit.write.permitsPerSecond", legacyPermits, "migration.rateLimit.write.burst"),
+                createRateLimiter(props, "migration.rateLimit.write.bytesPerSecond", 0d, "migration.rateLimit.write.burstBytes"));
     }
 
-    private static RateLimiter createRateLimiter(Properties props) {
-        double permits = parseDouble(props, "migration.rateLimit.permitsPerSecond", 0d);
-        if (!(permits > 0d)) {
+    /** A rate of 0 (or unset) means unlimited; the burst defaults to one permit, or one second's worth of bytes. */
+    private static RateLimiter createRateLimiter(Properties props, String rateKey, double defaultRate, String burstKey) {
+        double rate = parseDouble(props, rateKey, defaultRate);
+        if (!(rate > 0d)) {
             return RateLimiter.unlimited();
         }
-        return RateLimiter.create(permits);
+        long defaultBurst = rateKey.endsWith("bytesPerSecond") ? Math.max(1L, (long) rate) : 1L;
+        String rawBurst = props.getProperty(burstKey);
+        long burst = rawBurst == null || rawBurst.isBlank() ? defaultBurst : Long.parseLong(rawBurst.trim());
+        if (burst < 1) {
+            throw new IllegalArgumentException(burstKey + " must be >= 1");
+        }
+        return RateLimiter.create(rate, burst);
     }
 
     private static Duration parseDuration(Properties props, String key, Duration defaultValue) {
@@ -313,6 +594,42 @@ public final class App {
         return secretKey;
     }
 
+    private static Map<String, Object> checkpointCounts(CheckpointStore.Checkpoint checkpoint) {
+        return Map.of(
+                "scanned", checkpoint.scanned(),
+                "encrypted", checkpoint.encrypted(),
+                "written", checkpoint.written(),
+                "quarantined", checkpoint.quarantined(),
+                "prefiltered", checkpoint.prefiltered());
+    }
+
+    /**
+     * Shutdown fallback when the run did not drain in time: make queued quarantine records durable, checkpoint the
+     * current state and audit what is known.
+     */
+    private static void writeInterruptedAudit(
+            Properties props,
+            String runId,
+            Map<String, Object> auditAtStart,
+            MigrationJob job,
+            QuarantineSink quarantineSink) {
+        log.warn("Run did not drain in time; writing checkpoint and audit of the interrupted run");
+        try {
+            quarantineSink.flush();
+        } catch (RuntimeException e) {
+            log.error("Unable to flush quarantine records during shutdown (exceptionClass={})", e.getClass().getName());
+        }
+        Map<String, Object> audit = new LinkedHashMap<>(auditAtStart);
+        audit.put("endedAt", Instant.now().toString());
+        audit.put("status", "interrupted");
+        try {
+            job.checkpointNow().ifPresent(checkpoint -> audit.put("counts", checkpointCounts(checkpoint)));
+        } catch (RuntimeException e) {
+            log.error("Unable to write checkpoint during shutdown (exceptionClass={})", e.getClass().getName());
+        }
+        writeAudit(props, runId, audit);
+    }
+
     private static void writeAudit(Properties props, String runId, Map<String, Object> audit) {
         String dir = props.getProperty("migration.audit.dir", "audit");
         Path auditDir = Path.of(dir);
@@ -352,13 +669,71 @@ public final class App {
             update(md, "couchbase.numKvConnections", props.getProperty("couchbase.numKvConnections"));
             update(md, "pii.keys", props.getProperty("pii.keys"));
             update(md, "pii.keyRegex", props.getProperty("pii.keyRegex"));
+            update(md, "pii.paths", props.getProperty("pii.paths"));
+            update(md, "pii.rewriteMode", props.getProperty("pii.rewriteMode"));
+            update(md, "pii.prefilter.enabled", props.getProperty("pii.prefilter.enabled"));
+            update(md, "crypto.ivSource", props.getProperty("crypto.ivSource"));
+            update(md, "crypto.ivState.dir", props.getProperty("crypto.ivState.dir"));
+            update(md, "migration.encrypt.threads", props.getProperty("migration.encrypt.threads"));
+            update(md, "migration.encrypt.queueCapacity", props.getProperty("migration.encrypt.queueCapacity"));
             update(md, "migration.rateLimit.permitsPerSecond", props.getProperty("migration.rateLimit.permitsPerSecond"));
+            update(md, "migration.rateLimit.read.permitsPerSecond", props.getProperty("migration.rateLimit.read.permitsPerSecond"));
+            update(md, "migration.rateLimit.read.burst", props.getProperty("migration.rateLimit.read.burst"));
+            update(md, "migration.rateLimit.read.bytesPerSecond", props.getProperty("migration.rateLimit.read.bytesPerSecond"));
+            update(md, "migration.rateLimit.read.burstBytes", props.getProperty("migration.rateLimit.read.burstBytes"));
+            update(md, "migration.rateLimit.write.permitsPerSecond", props.getProperty("migration.rateLimit.write.permitsPerSecond"));
+            update(md, "migration.rateLimit.write.burst", props.getProperty("migration.rateLimit.write.burst"));
+            update(md, "migration.rateLimit.write.bytesPerSecond", props.getProperty("migration.rateLimit.write.bytesPerSecond"));
+            update(md, "migration.rateLimit.write.burstBytes", props.getProperty("migration.rateLimit.write.burstBytes"));
             update(md, "migration.concurrency.max", String.valueOf(maxInFlight));
+            update(md, "migration.scan.partitions", props.getProperty("migration.scan.partitions"));
+            update(md, "migration.scan.boundaries", props.getProperty("migration.scan.boundaries"));
+            update(md, "migration.scan.sampleSize", props.getProperty("migration.scan.sampleSize"));
+            update(md, "migration.scan.mode", props.getProperty("migration.scan.mode"));
+            update(md, "migration.retry.get.maxAttempts", props.getProperty("migration.retry.get.maxAttempts"));
+            update(md, "migration.retry.get.initialBackoff", props.getProperty("migration.retry.get.initialBackoff"));
+            update(md, "migration.retry.get.maxBackoff", props.getProperty("migration.retry.get.maxBackoff"));
+            update(md, "migration.retry.upsert.maxAttempts", props.getProperty("migration.retry.upsert.maxAttempts"));
+            update(md, "migration.retry.upsert.initialBackoff", props.getProperty("migration.retry.upsert.initialBackoff"));
+            update(md, "migration.retry.upsert.maxBackoff", props.getProperty("migration.retry.upsert.maxBackoff"));
+            update(md, "migration.retry.jitter", props.getProperty("migration.retry.jitter"));
+            update(md, "migration.retry.budget.ratio", props.getProperty("migration.retry.budget.ratio"));
+            update(md, "migration.retry.budget.minPerSecond", props.getProperty("migration.retry.budget.minPerSecond"));
+            update(md, "migration.breaker.enabled", props.getProperty("migration.breaker.enabled"));
+            update(md, "migration.breaker.window", props.getProperty("migration.breaker.window"));
+            update(md, "migration.breaker.minCalls", props.getProperty("migration.breaker.minCalls"));
+            update(md, "migration.breaker.failureRatePercent", props.getProperty("migration.breaker.failureRatePercent"));
+            update(md, "migration.breaker.slowCallThreshold", props.getProperty("migration.breaker.slowCallThreshold"));
+            update(md, "migration.breaker.slowCallRatePercent", props.getProperty("migration.breaker.slowCallRatePercent"));
+            update(md, "migration.breaker.openDuration", props.getProperty("migration.breaker.openDuration"));
+            update(md, "migration.breaker.probes", props.getProperty("migration.breaker.probes"));
+            update(md, "migration.read.mode", props.getProperty("migration.read.mode"));
+            update(md, "migration.read.hedge.percentile", props.getProperty("migration.read.hedge.percentile"));
+            update(md, "migration.read.hedge.minDelay", props.getProperty("migration.read.hedge.minDelay"));
+            update(md, "migration.read.hedge.window", props.getProperty("migration.read.hedge.window"));
+            update(md, "migration.scan.batchItemLimit", props.getProperty("migration.scan.batchItemLimit"));
+            update(md, "migration.scan.batchByteLimit", props.getProperty("migration.scan.batchByteLimit"));
+            update(md, "migration.scan.autoTune", props.getProperty("migration.scan.autoTune"));
+            update(md, "migration.scan.autoTune.maxItems", props.getProperty("migration.scan.autoTune.maxItems"));
+            update(md, "migration.scan.autoTune.maxBatchBytes", props.getProperty("migration.scan.autoTune.maxBatchBytes"));
+            update(md, "migration.scan.autoTune.roundSize", props.getProperty("migration.scan.autoTune.roundSize"));
+            update(md, "migration.concurrency.adaptive", props.getProperty("migration.concurrency.adaptive"));
+            update(md, "migration.concurrency.min", props.getProperty("migration.concurrency.min"));
+            update(md, "migration.concurrency.initial", props.getProperty("migration.concurrency.initial"));
             update(md, "migration.checkpoint.every", String.valueOf(checkpointEvery));
+            update(md, "migration.checkpoint.flushInterval", props.getProperty("migration.checkpoint.flushInterval"));
+            update(md, "migration.checkpoint.fsync", props.getProperty("migration.checkpoint.fsync"));
+            update(md, "migration.checkpoint.fsyncInterval", props.getProperty("migration.checkpoint.fsyncInterval"));
             update(md, "migration.checkpoint.path", props.getProperty("migration.checkpoint.path"));
             update(md, "migration.quarantine.path", props.getProperty("migration.quarantine.path"));
+            update(md, "migration.quarantine.mode", props.getProperty("migration.quarantine.mode"));
+            update(md, "migration.runMode", props.getProperty("migration.runMode"));
+            update(md, "migration.quarantine.log.segmentBytes", props.getProperty("migration.quarantine.log.segmentBytes"));
+            update(md, "migration.quarantine.log.bufferCapacity", props.getProperty("migration.quarantine.log.bufferCapacity"));
             update(md, "migration.killSwitch.enabled", props.getProperty("migration.killSwitch.enabled"));
             update(md, "migration.killSwitch.path", props.getProperty("migration.killSwitch.path"));
+            update(md, "migration.killSwitch.pollInterval", props.getProperty("migration.killSwitch.pollInterval"));
+            update(md, "migration.shutdown.drainTimeout", props.getProperty("migration.shutdown.drainTimeout"));
             update(md, "migration.durability", durability.toString());
             update(md, "migration.dryRun", String.valueOf(dryRun));
             update(md, "keyId", keyId);
@@ -408,9 +783,231 @@ public final class App {
         }
     }
 
-    record PiiConfig(List<String> keys, Pattern regex) {
+    record PiiConfig(List<String> keys, Pattern regex, PiiPathTrie paths, PiiRewriteMode rewriteMode) {
         PiiConfig {
             keys = List.copyOf(Objects.requireNonNull(keys, "keys"));
+            paths = Objects.requireNonNull(paths, "paths");
+            rewriteMode = Objects.requireNonNull(rewriteMode, "rewriteMode");
+        }
+    }
+
+    enum PiiRewriteMode {
+        TREE,
+        STREAMING,
+        SPLICE
+    }
+
+    private static PiiRewriteMode parsePiiRewriteMode(Properties props) {
+        String raw = props.getProperty("pii.rewriteMode");
+        if (raw == null || raw.isBlank()) {
+            return PiiRewriteMode.TREE;
+        }
+        try {
+            return PiiRewriteMode.valueOf(raw.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid pii.rewriteMode: " + raw + " (expected one of tree, streaming, splice)");
+        }
+    }
+
+    /**
+     * {@code migration.scan.batchItemLimit}/{@code batchByteLimit} (0 = SDK default), or with
+     * {@code migration.scan.autoTune} an item limit starting at {@code batchItemLimit} (default 50) and tuned per round.
+     */
+    static ScanBatchTuner createScanBatchTuner(Properties props) {
+        int itemLimit = parseInt(props, "migration.scan.batchItemLimit", 0);
+        if (!parseBoolean(props, "migration.scan.autoTune", false)) {
+            return ScanBatchTuner.fixed(itemLimit, parseInt(props, "migration.scan.batchByteLimit", 0));
+        }
+        return ScanBatchTuner.autoTune(
+                itemLimit > 0 ? itemLimit : 50,
+                parseInt(props, "migration.scan.autoTune.maxItems", 1000),
+                parseInt(props, "migration.scan.autoTune.maxBatchBytes", 4 * 1024 * 1024),
+                parseInt(props, "migration.scan.autoTune.roundSize", 10_000));
+    }
+
+    /**
+     * Per-stage {@code migration.retry.<get|upsert>.maxAttempts} (default 3, 1 = no retry), {@code .initialBackoff}
+     * (default 50 ms) and {@code .maxBackoff} (default 2 s), with a shared {@code migration.retry.jitter}.
+     */
+    static MigrationJob.RetryPolicies createRetryPolicies(Properties props, RetryBudget budget) {
+        double jitter = parseDouble(props, "migration.retry.jitter", 0.5);
+        return new MigrationJob.RetryPolicies(
+                createRetryPolicy(props, "get", jitter, budget),
+                createRetryPolicy(props, "upsert", jitter, budget));
+    }
+
+    private static RetryPolicy createRetryPolicy(Properties props, String stage, double jitter, RetryBudget budget) {
+        String prefix = "migration.retry." + stage;
+        return RetryPolicy.create(
+                parseInt(props, prefix + ".maxAttempts", 3),
+                parseDuration(props, prefix + ".initialBackoff", Duration.ofMillis(50)),
+                parseDuration(props, prefix + ".maxBackoff", Duration.ofSeconds(2)),
+                jitter,
+                budget);
+    }
+
+    /**
+     * Background checkpoint writer: saves at most every {@code migration.checkpoint.flushInterval}, fsyncing per
+     * {@code migration.checkpoint.fsync} ({@code always}, {@code interval} or {@code never}).
+     */
+    private static AsyncCheckpointer createCheckpointer(Properties props, CheckpointStore store) {
+        return AsyncCheckpointer.start(
+                store,
+                parseDuration(props, "migration.checkpoint.flushInterval", Duration.ofSeconds(1)),
+                parseFsyncPolicy(props),
+                parseDuration(props, "migration.checkpoint.fsyncInterval", Duration.ofSeconds(5)));
+    }
+
+    /** Watched in the background, so the pipeline can check it per document. */
+    private static KillSwitch createKillSwitch(Properties props) {
+        KillSwitch killSwitch = new KillSwitch(
+                Path.of(requireProperty(props, "migration.killSwitch.path")),
+                parseBoolean(props, "migration.killSwitch.enabled", false));
+        return killSwitch.start(parseDuration(props, "migration.killSwitch.pollInterval", Duration.ofSeconds(1)));
+    }
+
+    /** {@code migrate} scans the source; {@code replay} reprocesses only the IDs in the quarantine directory. */
+    enum RunMode {
+        MIGRATE,
+        REPLAY
+    }
+
+    private static RunMode parseRunMode(Properties props) {
+        String raw = props.getProperty("migration.runMode");
+        if (raw == null || raw.isBlank()) {
+            return RunMode.MIGRATE;
+        }
+        try {
+            return RunMode.valueOf(raw.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid migration.runMode: " + raw + " (expected one of migrate, replay)");
+        }
+    }
+
+    enum QuarantineMode {
+        FILES,
+        LOG
+    }
+
+    /**
+     * {@code files} writes one text file per document; {@code log} appends to segment files through a background
+     * writer, rolling at {@code migration.quarantine.log.segmentBytes}.
+     */
+    private static QuarantineSink createQuarantineSink(Properties props) {
+        Path dir = Path.of(requireProperty(props, "migration.quarantine.path"));
+        return switch (parseQuarantineMode(props)) {
+            case FILES -> new QuarantineWriter(dir);
+            case LOG -> QuarantineLog.open(
+                    dir,
+                    parseInt(props, "migration.quarantine.log.segmentBytes", 64 * 1024 * 1024),
+                    parseInt(props, "migration.quarantine.log.bufferCapacity", 8192));
+        };
+    }
+
+    private static QuarantineMode parseQuarantineMode(Properties props) {
+        String raw = props.getProperty("migration.quarantine.mode");
+        if (raw == null || raw.isBlank()) {
+            return QuarantineMode.FILES;
+        }
+        try {
+            return QuarantineMode.valueOf(raw.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                    "Invalid migration.quarantine.mode: " + raw + " (expected one of files, log)");
+        }
+    }
+
+    private static AsyncCheckpointer.FsyncPolicy parseFsyncPolicy(Properties props) {
+        String raw = props.getProperty("migration.checkpoint.fsync");
+        if (raw == null || raw.isBlank()) {
+            return AsyncCheckpointer.FsyncPolicy.ALWAYS;
+        }
+        try {
+            return AsyncCheckpointer.FsyncPolicy.valueOf(raw.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                    "Invalid migration.checkpoint.fsync: " + raw + " (expected one of always, interval, never)");
+        }
+    }
+
+    /**
+     * With {@code migration.breaker.enabled}, one breaker each for GET and UPSERT sharing the
+     * {@code migration.breaker.*} thresholds; transient errors count as failures.
+     */
+    static MigrationJob.CircuitBreakers createCircuitBreakers(Properties props) {
+        if (!parseBoolean(props, "migration.breaker.enabled", false)) {
+            return MigrationJob.CircuitBreakers.disabled();
+        }
+        CircuitBreaker.Settings settings = new CircuitBreaker.Settings(
+                parseInt(props, "migration.breaker.window", 100),
+                parseInt(props, "migration.breaker.minCalls", 20),
+                parseDouble(props, "migration.breaker.failureRatePercent", 50.0),
+                parseDuration(props, "migration.breaker.slowCallThreshold", Duration.ofSeconds(2)),
+                parseDouble(props, "migration.breaker.slowCallRatePercent", 80.0),
+                parseDuration(props, "migration.breaker.openDuration", Duration.ofSeconds(5)),
+                parseInt(props, "migration.breaker.probes", 5));
+        return new MigrationJob.CircuitBreakers(
+                CircuitBreaker.create("get", settings, ErrorClassifier::isTransient),
+                CircuitBreaker.create("upsert", settings, ErrorClassifier::isTransient));
+    }
+
+    private static void logBreakerTransition(CircuitBreaker.Transition transition) {
+        if (transition.to() == CircuitBreaker.State.OPEN) {
+            log.warn("Circuit breaker {} {} -> {}; pausing", transition.breaker(), transition.from(), transition.to());
+        } else {
+            log.info("Circuit breaker {} {} -> {}", transition.breaker(), transition.from(), transition.to());
+        }
+    }
+
+    /** Retries stay within {@code migration.retry.budget.ratio} of requests, plus {@code minPerSecond}. */
+    private static RetryBudget createRetryBudget(Properties props) {
+        return RetryBudget.create(
+                parseDouble(props, "migration.retry.budget.ratio", 0.1),
+                parseDouble(props, "migration.retry.budget.minPerSecond", 10.0));
+    }
+
+    /**
+     * {@code migration.read.mode}: {@code active} (default), {@code replica} or {@code hedged}; hedges fire past the
+     * {@code migration.read.hedge.percentile} GET latency, and never sooner than {@code migration.read.hedge.minDelay}.
+     */
+    private static SourceReader createSourceReader(Properties props, ReactiveCollection source) {
+        return switch (parseReadMode(props)) {
+            case ACTIVE -> SourceReader.active(source);
+            case REPLICA -> SourceReader.anyReplica(source);
+            case HEDGED -> SourceReader.hedged(
+                    source,
+                    createHedgeLatencyTracker(props),
+                    parseDuration(props, "migration.read.hedge.minDelay", Duration.ofMillis(1)));
+        };
+    }
+
+    private static LatencyTracker createHedgeLatencyTracker(Properties props) {
+        return LatencyTracker.create(
+                parseDouble(props, "migration.read.hedge.percentile", 95.0) / 100.0,
+                parseInt(props, "migration.read.hedge.window", 1000));
+    }
+
+    private static SourceReader.Mode parseReadMode(Properties props) {
+        String raw = props.getProperty("migration.read.mode");
+        if (raw == null || raw.isBlank()) {
+            return SourceReader.Mode.ACTIVE;
+        }
+        try {
+            return SourceReader.Mode.valueOf(raw.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid migration.read.mode: " + raw + " (expected one of active, replica, hedged)");
+        }
+    }
+
+    private static MigrationJob.ScanMode parseScanMode(Properties props) {
+        String raw = props.getProperty("migration.scan.mode");
+        if (raw == null || raw.isBlank()) {
+            return MigrationJob.ScanMode.IDS;
+        }
+        try {
+            return MigrationJob.ScanMode.valueOf(raw.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid migration.scan.mode: " + raw + " (expected one of ids, content)");
         }
     }
 
@@ -0,0 +1,101 @@
+package com.example.crypto;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deterministic IVs (NIST SP 800-38D section 8.2.1): {@code fixed(4 bytes) || counter(8 bytes, big-endian)}.
+ * <p>
+ * With an {@link IvCounterState}, the fixed field is chosen once per key and the counter continues from the last
+ * run's reservation, reserving {@code reservationBlock} values at a time before using them; the 2^32 cap then
+ * applies to the key across all runs. Without one (tests only), both are per instance. Past the cap every call fails
+ * with {@link IllegalStateException} and the key must be rotated.
+ */
+final class CounterIvSource implements IvSource {
+    static final long MAX_INVOCATIONS = 1L << 32;
+    static final long RESERVATION_BLOCK = 1L << 16;
+
+    private final byte[] fixedField;
+    private final AtomicLong invocations;
+    private final long maxInvocations;
+    private final IvCounterState state;
+    private final long reservationBlock;
+    private volatile long reserved;
+
+    /** In-memory source: random fixed field, counter from 0, nothing persisted. */
+    CounterIvSource(SecureRandom secureRandom, long maxInvocations) {
+        this(randomFixedField(secureRandom), 0, maxInvocations, null, maxInvocations);
+    }
+
+    CounterIvSource(IvCounterState state, long maxInvocations, long reservationBlock) {
+        this(state.fixedField(), state.reserved(), maxInvocations, state, reservationBlock);
+    }
+
+    private CounterIvSource(
+            byte[] fixedField, long start, long maxInvocations, IvCounterState state, long reservationBlock) {
+        if (maxInvocations <= 0) {
+            throw new IllegalArgumentException("maxInvocations must be > 0");
+        }
+        if (reservationBlock <= 0) {
+            throw new IllegalArgumentException("reservationBlock must be > 0");
+        }
+        this.fixedField = fixedField;
+        this.invocations = new AtomicLong(Math.min(start, maxInvocations));
+        this.maxInvocations = maxInvocations;
+        this.state = state;
+        this.reservationBlock = reservationBlock;
+        this.reserved = state == null ? maxInvocations : Math.min(start, maxInvocations);
+    }
+
+    @Override
+    public void nextIv(byte[] iv) {
+        if (iv.length != 12) {
+            throw new IllegalArgumentException("iv must be 12 bytes");
+        }
+        long counter = invocations.getAndIncrement();
+        if (counter >= maxInvocations) {
+            invocations.set(maxInvocations);
+            throw new IllegalStateException(
+                    "IV invocation limit of " + maxInvocations + " reached for this key; rotate the key");
+        }
+        if (counter >= reserved) {
+            reserveThrough(counter);
+        }
+        System.arraycopy(fixedField, 0, iv, 0, 4);
+        for (int i = 11; i >= 4; i--) {
+            iv[i] = (byte) counter;
+            counter >>>= 8;
+        }
+    }
+
+    @Override
+    public String name() {
+        return "deterministic";
+    }
+
+    @Override
+    public void close() {
+        if (state != null) {
+            state.close();
+        }
+    }
+
+    /** Counter values issued for the key so far, including those reserved by earlier runs. */
+    long invocations() {
+        return Math.min(invocations.get(), maxInvocations);
+    }
+
+    private synchronized void reserveThrough(long counter) {
+        while (counter >= reserved) {
+            long next = Math.min(reserved + reservationBlock, maxInvocations);
+            state.reserve(next);
+            reserved = next;
+        }
+    }
+
+    private static byte[] randomFixedField(SecureRandom secureRandom) {
+        byte[] fixedField = new byte[4];
+        secureRandom.nextBytes(fixedField);
+        return fixedField;
+    }
+}
@@ -11,25 +11,46 @@ import javax.crypto.spec.GCMParameterSpec;
 
 /**
  * Minimal AES-256-GCM encryptor with deterministic envelope output.
+ * <p>
+ * Each thread keeps its own {@link Cipher}, re-initialized with a fresh IV from the {@link IvSource} for every
+ * call, so the provider lookup happens once per thread instead of once per field.
  */
 public final class Encryptor {
     private static final String TRANSFORMATION = "AES/GCM/NoPadding";
     private static final String ALGORITHM_ID = "AES-256-GCM";
     private static final int IV_LENGTH_BYTES = 12;
     private static final int TAG_LENGTH_BITS = 128;
+    private static final int TAG_LENGTH_BYTES = TAG_LENGTH_BITS / 8;
 
     private final SecretKey secretKey;
     private final String keyId;
-    private final SecureRandom secureRandom;
+    private final IvSource ivSource;
+    private final ThreadLocal<Cipher> ciphers = new ThreadLocal<>();
 
     public Encryptor(SecretKey secretKey, String keyId) {
         this(secretKey, keyId, new SecureRandom());
     }
 
     public Encryptor(SecretKey secretKey, String keyId, SecureRandom secureRandom) {
+        this(secretKey, keyId, IvSource.sharedRandom(secureRandom));
+    }
+
+    public Encryptor(SecretKey secretKey, String keyId, IvSource ivSource) {
         this.secretKey = Objects.requireNonNull(secretKey, "secretKey");
         this.keyId = Objects.requireNonNull(keyId, "keyId");
-        this.secureRandom = Objects.requireNonNull(secureRandom, "secureRandom");
+        this.ivSource = Objects.requireNonNull(ivSource, "ivSource");
+    }
+
+    public IvSource ivSource() {
+        return ivSource;
+    }
+
+    public String algorithmId() {
+        return ALGORITHM_ID;
+    }
+
+    public String keyId() {
+        return keyId;
     }
 
     public EncryptionEnvelope encrypt(byte[] plaintext, String documentId) {
@@ -37,11 +58,9 @@ public final class Encryptor {
         Objects.requireNonNull(documentId, "documentId");
         try {
             byte[] iv = new byte[IV_LENGTH_BYTES];
-            secureRandom.nextBytes(iv);
+            ivSource.nextIv(iv);
 
-            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-            cipher.init(Cipher.ENCRYPT_MODE, secretKey, new GCMParameterSpec(TAG_LENGTH_BITS, iv));
-            cipher.updateAAD(documentId.getBytes(StandardCharsets.UTF_8));
+            Cipher cipher = initCipher(iv, documentId);
             byte[] ciphertext = cipher.doFinal(plaintext);
 
             return new EncryptionEnvelope(
@@ -54,6 +73,52 @@ public final class Encryptor {
         }
     }
 
+    /**
+     * Encrypts {@code plaintext[offset, offset + length)} into {@code out} starting at {@code outOffset}, writing
+     * the 12-byte IV followed by the ciphertext and 16-byte tag. {@code out} must have at least
+     * {@link #outputLength(int)} bytes available.
+     *
+     * @return the number of bytes written
+     */
+    public int encrypt(byte[] plaintext, int offset, int length, String documentId, byte[] out, int outOffset) {
+        Objects.requireNonNull(plaintext, "plaintext");
+        Objects.requireNonNull(documentId, "documentId");
+        Objects.requireNonNull(out, "out");
+        Objects.checkFromIndexSize(offset, length, plaintext.length);
+        Objects.checkFromIndexSize(outOffset, outputLength(length), out.length);
+        try {
+            byte[] iv = new byte[IV_LENGTH_BYTES];
+            ivSource.nextIv(iv);
+            System.arraycopy(iv, 0, out, outOffset, IV_LENGTH_BYTES);
+
+            Cipher cipher = initCipher(iv, documentId);
+            int written = cipher.doFinal(plaintext, offset, length, out, outOffset + IV_LENGTH_BYTES);
+            return IV_LENGTH_BYTES + written;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to encrypt payload", e);
+        }
+    }
+
+    /** Bytes written by {@link #encrypt(byte[], int, int, String, byte[], int)} for a plaintext of this length. */
+    public static int outputLength(int plaintextLength) {
+        return IV_LENGTH_BYTES + plaintextLength + TAG_LENGTH_BYTES;
+    }
+
+    public static int ivLength() {
+        return IV_LENGTH_BYTES;
+    }
+
+    private Cipher initCipher(byte[] iv, String documentId) throws GeneralSecurityException {
+        Cipher cipher = ciphers.get();
+        if (cipher == null) {
+            cipher = Cipher.getInstance(TRANSFORMATION);
+            ciphers.set(cipher);
+        }
+        cipher.init(Cipher.ENCRYPT_MODE, secretKey, new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+        cipher.updateAAD(documentId.getBytes(StandardCharsets.UTF_8));
+        return cipher;
+    }
+
     public record EncryptionEnvelope(String alg, String kid, String iv, String ct) {
     }
 }
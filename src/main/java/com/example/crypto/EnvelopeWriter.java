@@ -0,0 +1,68 @@
+package com.example.crypto;
+
+import com.fasterxml.jackson.core.Base64Variants;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Encrypts a value and writes its {@code {"v":1,"_enc":{alg,kid,iv,ct}}} envelope straight into a
+ * {@link JsonGenerator}.
+ * <p>
+ * The IV and ciphertext land in a per-thread scratch buffer and are Base64-encoded by the generator
+ * ({@link JsonGenerator#writeBinary}), so no intermediate {@code String}s or tree nodes are built. Field names and
+ * the {@code alg}/{@code kid} values are pre-encoded once. The output is byte-identical to serializing
+ * {@link Encryptor.EncryptionEnvelope} fields as strings.
+ */
+public final class EnvelopeWriter {
+    /** Scratch buffers above this size are used once and not kept by the thread. */
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+
+    private static final SerializedString V = new SerializedString("v");
+    private static final SerializedString ENC = new SerializedString("_enc");
+    private static final SerializedString ALG = new SerializedString("alg");
+    private static final SerializedString KID = new SerializedString("kid");
+    private static final SerializedString IV = new SerializedString("iv");
+    private static final SerializedString CT = new SerializedString("ct");
+
+    private final Encryptor encryptor;
+    private final SerializedString algValue;
+    private final SerializedString kidValue;
+    private final ThreadLocal<byte[]> scratch = ThreadLocal.withInitial(() -> new byte[1024]);
+
+    public EnvelopeWriter(Encryptor encryptor) {
+        this.encryptor = Objects.requireNonNull(encryptor, "encryptor");
+        this.algValue = new SerializedString(encryptor.algorithmId());
+        this.kidValue = new SerializedString(encryptor.keyId());
+    }
+
+    public void write(JsonGenerator generator, byte[] plaintext, String documentId) throws IOException {
+        int required = Encryptor.outputLength(plaintext.length);
+        byte[] buffer = scratch.get();
+        if (buffer.length < required) {
+            buffer = new byte[required];
+            if (required <= MAX_RETAINED_BUFFER) {
+                scratch.set(buffer);
+            }
+        }
+        int written = encryptor.encrypt(plaintext, 0, plaintext.length, documentId, buffer, 0);
+        int ivLength = Encryptor.ivLength();
+
+        generator.writeStartObject();
+        generator.writeFieldName(V);
+        generator.writeNumber(1);
+        generator.writeFieldName(ENC);
+        generator.writeStartObject();
+        generator.writeFieldName(ALG);
+        generator.writeString(algValue);
+        generator.writeFieldName(KID);
+        generator.writeString(kidValue);
+        generator.writeFieldName(IV);
+        generator.writeBinary(Base64Variants.MIME_NO_LINEFEEDS, buffer, 0, ivLength);
+        generator.writeFieldName(CT);
+        generator.writeBinary(Base64Variants.MIME_NO_LINEFEEDS, buffer, ivLength, written - ivLength);
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.crypto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channel;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Durable state of a {@link CounterIvSource} for one key: its 4-byte fixed field and the counter value reserved so
+ * far. Every run with the key reloads the file and continues past the reservation, so the 2^32 invocation limit and
+ * IV uniqueness hold across runs, resumes and replays, and a crash only skips the unused part of one reservation.
+ * <p>
+ * Reservations are written to a temp file, fsynced and atomically renamed over the state file before any counter
+ * value they cover is used. {@link #open} takes an exclusive lock on a sibling {@code .lock} file and holds it until
+ * {@link #close()}, so two runs (e.g. a scan and a replay) can never issue counters from the same state at once.
+ */
+final class IvCounterState implements AutoCloseable {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Path file;
+    private final String keyId;
+    private final byte[] fixedField;
+    private final FileLock lock;
+    private long reserved;
+
+    private IvCounterState(Path file, String keyId, byte[] fixedField, long reserved, FileLock lock) {
+        this.file = file;
+        this.keyId = keyId;
+        this.fixedField = fixedField;
+        this.reserved = reserved;
+        this.lock = lock;
+    }
+
+    /**
+     * Locks and loads the state for {@code keyId}, or starts one with a fresh random fixed field if the file is
+     * missing. Fails with {@link IllegalStateException} if another source holds the state.
+     */
+    static IvCounterState open(Path file, String keyId, SecureRandom secureRandom) {
+        Objects.requireNonNull(file, "file");
+        Objects.requireNonNull(keyId, "keyId");
+        Objects.requireNonNull(secureRandom, "secureRandom");
+        FileLock lock = lock(file);
+        try {
+            if (!Files.exists(file)) {
+                byte[] fixedField = new byte[4];
+                secureRandom.nextBytes(fixedField);
+                IvCounterState state = new IvCounterState(file, keyId, fixedField, 0, lock);
+                state.reserve(0);
+                return state;
+            }
+            Stored stored;
+            try {
+                stored = MAPPER.readValue(file.toFile(), Stored.class);
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to read IV counter state: " + file, e);
+            }
+            if (!keyId.equals(stored.keyId())) {
+                throw new IllegalStateException(
+                        "IV counter state " + file + " belongs to key " + stored.keyId() + ", not " + keyId);
+            }
+            return new IvCounterState(file, keyId, stored.fixedField(), stored.reserved(), lock);
+        } catch (RuntimeException e) {
+            release(lock);
+            throw e;
+        }
+    }
+
+    byte[] fixedField() {
+        return fixedField.clone();
+    }
+
+    /** Counter values below this may have been used by an earlier run. */
+    synchronized long reserved() {
+        return reserved;
+    }
+
+    /** Durably records that counter values below {@code through} may be in use. */
+    synchronized void reserve(long through) {
+        if (!lock.isValid()) {
+            throw new IllegalStateException("IV counter state " + file + " is closed");
+        }
+        if (through < reserved) {
+            throw new IllegalArgumentException("IV counter reservations only move forward");
+        }
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            byte[] payload = MAPPER.writeValueAsBytes(new Stored(keyId, HexFormat.of().formatHex(fixedField), through));
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp-" + UUID.randomUUID());
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(payload);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to write IV counter state: " + file, e);
+        }
+        reserved = through;
+    }
+
+    /** Releases the lock; the state must not be used afterwards. Idempotent. */
+    @Override
+    public void close() {
+        release(lock);
+    }
+
+    /** The state file is replaced on every reservation, so the lock lives on a sibling file that never moves. */
+    private static FileLock lock(Path file) {
+        Path lockFile = file.resolveSibling(file.getFileName() + ".lock");
+        FileChannel channel = null;
+        try {
+            Path parent = lockFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock;
+            try {
+                lock = channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                // Held by another source in this JVM.
+                lock = null;
+            }
+            if (lock == null) {
+                throw new IllegalStateException("IV counter state " + file + " is in use by another run");
+            }
+            return lock;
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw new IllegalStateException("Unable to lock IV counter state: " + file, e);
+        } catch (RuntimeException e) {
+            closeQuietly(channel);
+            throw e;
+        }
+    }
+
+    private static void release(FileLock lock) {
+        closeQuietly(lock.acquiredBy());
+    }
+
+    private static void closeQuietly(Channel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            // Closing the channel releases its lock.
+            channel.close();
+        } catch (IOException ignored) {
+            // Nothing else holds the lock file open.
+        }
+    }
+
+    record Stored(String keyId, String fixedFieldHex, long reserved) {
+        Stored {
+            Objects.requireNonNull(keyId, "keyId");
+            if (fixedFieldHex == null || fixedFieldHex.length() != 8) {
+                throw new IllegalArgumentException("fixedFieldHex must be 4 bytes of hex");
+            }
+            if (reserved < 0) {
+                throw new IllegalArgumentException("reserved must be >= 0");
+            }
+        }
+
+        byte[] fixedField() {
+            return HexFormat.of().parseHex(fixedFieldHex);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.crypto;
+
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.Objects;
+
+/**
+ * Supplies the 96-bit GCM IVs used by {@link Encryptor}. Implementations are thread-safe; the random ones rely on
+ * 96-bit collision odds, the deterministic one on a counter persisted per key.
+ */
+public interface IvSource extends AutoCloseable {
+    /** Fills {@code iv} (12 bytes) with the next IV. */
+    void nextIv(byte[] iv);
+
+    /** Short identifier recorded in the audit file. */
+    String name();
+
+    /** Releases whatever the source holds (the deterministic source's state lock); no-op by default. */
+    @Override
+    default void close() {
+    }
+
+    /** One {@link SecureRandom} shared by all threads (the original behavior). */
+    static IvSource sharedRandom(SecureRandom secureRandom) {
+        return new RandomIvSource(Objects.requireNonNull(secureRandom, "secureRandom"));
+    }
+
+    /** A separately seeded {@link SecureRandom} per thread, so concurrent encryptions do not contend on one lock. */
+    static IvSource threadLocalRandom() {
+        return new RandomIvSource(null);
+    }
+
+    /**
+     * NIST SP 800-38D deterministic construction: a random 32-bit fixed field chosen once per key followed by a
+     * 64-bit invocation counter, both kept in {@code stateFile} so later runs with {@code keyId} continue the
+     * sequence. Fails with {@link IllegalStateException} once 2^32 IVs have been issued under the key, and at
+     * creation if another source (in any process) holds {@code stateFile} until it is closed.
+     */
+    static IvSource deterministic(Path stateFile, String keyId, SecureRandom secureRandom) {
+        return new CounterIvSource(
+                IvCounterState.open(stateFile, keyId, secureRandom),
+                CounterIvSource.MAX_INVOCATIONS,
+                CounterIvSource.RESERVATION_BLOCK);
+    }
+}
@@ -3,26 +3,24 @@ package com.example.crypto;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.BinaryNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Deque;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Locale;
 import java.util.Objects;
-import java.util.Set;
 import java.util.regex.Pattern;
 
 /**
  * Encrypts selected fields in a JSON document without recursion to avoid stack growth.
  */
-public final class KeyScanPiiEncryptor {
+public final class KeyScanPiiEncryptor implements PiiEncryptor {
     private final Encryptor encryptor;
-    private final Set<String> piiKeys;
-    private final Pattern keyPattern;
+    private final PiiFieldMatcher fieldMatcher;
+    private final PiiPathTrie pathTrie;
     private final ObjectMapper mapper;
 
     public KeyScanPiiEncryptor(Encryptor encryptor, Collection<String> piiKeys, Pattern keyPattern) {
@@ -31,19 +29,22 @@ public final class KeyScanPiiEncryptor {
 
     public KeyScanPiiEncryptor(
             Encryptor encryptor, Collection<String> piiKeys, Pattern keyPattern, ObjectMapper mapper) {
+        this(encryptor, new PiiFieldMatcher(piiKeys, keyPattern), mapper);
+    }
+
+    public KeyScanPiiEncryptor(Encryptor encryptor, PiiFieldMatcher fieldMatcher, ObjectMapper mapper) {
+        this(encryptor, fieldMatcher, PiiPathTrie.empty(), mapper);
+    }
+
+    public KeyScanPiiEncryptor(
+            Encryptor encryptor, PiiFieldMatcher fieldMatcher, PiiPathTrie pathTrie, ObjectMapper mapper) {
         this.encryptor = Objects.requireNonNull(encryptor, "encryptor");
-        this.keyPattern = keyPattern;
         this.mapper = Objects.requireNonNull(mapper, "mapper");
-        this.piiKeys = new HashSet<>();
-        if (piiKeys != null) {
-            for (String key : piiKeys) {
-                if (key != null && !key.isBlank()) {
-                    this.piiKeys.add(key.toLowerCase(Locale.ROOT));
-                }
-            }
-        }
+        this.fieldMatcher = Objects.requireNonNull(fieldMatcher, "fieldMatcher");
+        this.pathTrie = Objects.requireNonNull(pathTrie, "pathTrie");
     }
 
+    @Override
     public byte[] encrypt(byte[] jsonDocument, String documentId) {
         Objects.requireNonNull(jsonDocument, "jsonDocument");
         Objects.requireNonNull(documentId, "documentId");
@@ -62,10 +63,11 @@ public final class KeyScanPiiEncryptor {
 
     private boolean scanAndEncrypt(JsonNode root, String documentId) throws IOException {
         boolean mutated = false;
-        Deque<JsonNode> stack = new ArrayDeque<>();
-        stack.push(root);
+        Deque<Frame> stack = new ArrayDeque<>();
+        stack.push(new Frame(root, pathTrie.root()));
         while (!stack.isEmpty()) {
-            JsonNode current = stack.pop();
+            Frame frame = stack.pop();
+            JsonNode current = frame.node();
             if (current.isObject()) {
                 ObjectNode objectNode = (ObjectNode) current;
                 List<String> fieldNames = new ArrayList<>();
@@ -75,19 +77,25 @@ public final class KeyScanPiiEncryptor {
                     if (child == null) {
                         continue;
                     }
-                    if (shouldEncrypt(fieldName, child)) {
+                    PiiPathTrie.State childState = frame.state().field(fieldName);
+                    if (shouldEncrypt(fieldName, childState, child)) {
                         ObjectNode encryptedNode = createEncryptedNode(child, documentId);
                         objectNode.set(fieldName, encryptedNode);
                         mutated = true;
-                    } else if (child.isContainerNode()) {
-                        stack.push(child);
+                    } else if (child.isContainerNode() && canMatchBelow(childState)) {
+                        stack.push(new Frame(child, childState));
                     }
                 }
             } else if (current.isArray()) {
                 ArrayNode arrayNode = (ArrayNode) current;
-                for (JsonNode child : arrayNode) {
-                    if (child.isContainerNode()) {
-                        stack.push(child);
+                PiiPathTrie.State elementState = frame.state().element();
+                for (int i = 0; i < arrayNode.size(); i++) {
+                    JsonNode child = arrayNode.get(i);
+                    if (elementState.terminal() && !isEncryptedEnvelope(child)) {
+                        arrayNode.set(i, createEncryptedNode(child, documentId));
+                        mutated = true;
+                    } else if (child.isContainerNode() && canMatchBelow(elementState)) {
+                        stack.push(new Frame(child, elementState));
                     }
                 }
             }
@@ -95,30 +103,37 @@ public final class KeyScanPiiEncryptor {
         return mutated;
     }
 
-    private boolean shouldEncrypt(String fieldName, JsonNode node) {
-        if (node.isObject() && node.has("_enc")) {
+    private boolean shouldEncrypt(String fieldName, PiiPathTrie.State state, JsonNode node) {
+        if (isEncryptedEnvelope(node)) {
             return false;
         }
-        if (fieldName == null) {
-            return false;
-        }
-        String lower = fieldName.toLowerCase(Locale.ROOT);
-        if (piiKeys.contains(lower)) {
-            return true;
-        }
-        return keyPattern != null && keyPattern.matcher(fieldName).matches();
+        return state.terminal() || fieldMatcher.matches(fieldName);
+    }
+
+    private boolean canMatchBelow(PiiPathTrie.State state) {
+        return fieldMatcher.hasRules() || !state.isDead();
+    }
+
+    private static boolean isEncryptedEnvelope(JsonNode node) {
+        return node.isObject() && node.has("_enc");
     }
 
     private ObjectNode createEncryptedNode(JsonNode originalValue, String documentId) throws IOException {
         byte[] serialized = mapper.writeValueAsBytes(originalValue);
-        Encryptor.EncryptionEnvelope envelope = encryptor.encrypt(serialized, documentId);
+        byte[] ivAndCiphertext = new byte[Encryptor.outputLength(serialized.length)];
+        int written = encryptor.encrypt(serialized, 0, serialized.length, documentId, ivAndCiphertext, 0);
+        int ivLength = Encryptor.ivLength();
         ObjectNode wrapper = mapper.createObjectNode();
         wrapper.put("v", 1);
         ObjectNode encNode = wrapper.putObject("_enc");
-        encNode.put("alg", envelope.alg());
-        encNode.put("kid", envelope.kid());
-        encNode.put("iv", envelope.iv());
-        encNode.put("ct", envelope.ct());
+        encNode.put("alg", encryptor.algorithmId());
+        encNode.put("kid", encryptor.keyId());
+        // Binary nodes are Base64-encoded by the generator on output, skipping intermediate strings.
+        encNode.set("iv", new BinaryNode(ivAndCiphertext, 0, ivLength));
+        encNode.set("ct", new BinaryNode(ivAndCiphertext, ivLength, written - ivLength));
         return wrapper;
     }
+
+    private record Frame(JsonNode node, PiiPathTrie.State state) {
+    }
 }
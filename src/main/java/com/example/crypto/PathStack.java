@@ -0,0 +1,41 @@
+package com.example.crypto;
+
+import java.util.Arrays;
+
+/**
+ * Per-container path state for the token-based encryptors: the {@link PiiPathTrie.State} of each open object or
+ * array and whether it is an array.
+ */
+final class PathStack {
+    private PiiPathTrie.State[] states = new PiiPathTrie.State[16];
+    private boolean[] arrays = new boolean[16];
+    private int depth;
+
+    void push(PiiPathTrie.State state, boolean array) {
+        if (depth == states.length) {
+            states = Arrays.copyOf(states, depth * 2);
+            arrays = Arrays.copyOf(arrays, depth * 2);
+        }
+        states[depth] = state;
+        arrays[depth] = array;
+        depth++;
+    }
+
+    /** Pops the innermost container and returns the remaining depth. */
+    int pop() {
+        states[--depth] = null;
+        return depth;
+    }
+
+    boolean isEmpty() {
+        return depth == 0;
+    }
+
+    boolean inArray() {
+        return depth > 0 && arrays[depth - 1];
+    }
+
+    PiiPathTrie.State top() {
+        return states[depth - 1];
+    }
+}
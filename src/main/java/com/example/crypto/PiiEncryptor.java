@@ -0,0 +1,10 @@
+package com.example.crypto;
+
+/**
+ * Rewrites a raw JSON document so that PII fields are replaced by encrypted envelopes.
+ * <p>
+ * Implementations must return the input array instance unchanged when nothing was encrypted.
+ */
+public interface PiiEncryptor {
+    byte[] encrypt(byte[] jsonDocument, String documentId);
+}
@@ -0,0 +1,117 @@
+package com.example.crypto;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Decides whether a field name is configured as PII (case-insensitive key set and/or regex).
+ * <p>
+ * Keys are grouped by length and compared with {@link String#regionMatches(boolean, int, String, int, int)}, so
+ * a lookup never allocates. Decisions are memoized per distinct field name in a bounded concurrent cache, which
+ * means the regex runs once per name rather than once per occurrence. Once the cache is full, further names are
+ * still matched correctly but are not cached.
+ */
+public final class PiiFieldMatcher {
+    public static final int DEFAULT_MAX_CACHE_ENTRIES = 10_000;
+
+    private static final String[] NO_KEYS = new String[0];
+
+    private final String[][] keysByLength;
+    private final boolean hasKeys;
+    private final Pattern keyPattern;
+    private final int maxCacheEntries;
+    private final Map<String, Boolean> decisions = new ConcurrentHashMap<>();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    public PiiFieldMatcher(Collection<String> piiKeys, Pattern keyPattern) {
+        this(piiKeys, keyPattern, DEFAULT_MAX_CACHE_ENTRIES);
+    }
+
+    public PiiFieldMatcher(Collection<String> piiKeys, Pattern keyPattern, int maxCacheEntries) {
+        if (maxCacheEntries < 0) {
+            throw new IllegalArgumentException("maxCacheEntries must be >= 0");
+        }
+        this.keyPattern = keyPattern;
+        this.maxCacheEntries = maxCacheEntries;
+
+        Set<String> keys = new LinkedHashSet<>();
+        int maxLength = 0;
+        if (piiKeys != null) {
+            for (String key : piiKeys) {
+                if (key != null && !key.isBlank()) {
+                    String lower = key.toLowerCase(Locale.ROOT);
+                    keys.add(lower);
+                    maxLength = Math.max(maxLength, lower.length());
+                }
+            }
+        }
+        List<List<String>> grouped = new ArrayList<>(maxLength + 1);
+        for (int i = 0; i <= maxLength; i++) {
+            grouped.add(new ArrayList<>());
+        }
+        for (String key : keys) {
+            grouped.get(key.length()).add(key);
+        }
+        this.hasKeys = !keys.isEmpty();
+        this.keysByLength = new String[maxLength + 1][];
+        for (int i = 0; i <= maxLength; i++) {
+            List<String> group = grouped.get(i);
+            this.keysByLength[i] = group.isEmpty() ? NO_KEYS : group.toArray(NO_KEYS);
+        }
+    }
+
+    public boolean matches(String fieldName) {
+        if (fieldName == null) {
+            return false;
+        }
+        Boolean cached = decisions.get(fieldName);
+        if (cached != null) {
+            cacheHits.increment();
+            return cached;
+        }
+        cacheMisses.increment();
+        boolean decision = evaluate(fieldName);
+        if (decisions.size() < maxCacheEntries) {
+            decisions.putIfAbsent(fieldName, decision);
+        }
+        return decision;
+    }
+
+    /** True when at least one key or a regex is configured, i.e. a field at any depth may match. */
+    public boolean hasRules() {
+        return hasKeys || keyPattern != null;
+    }
+
+    public long cacheHits() {
+        return cacheHits.sum();
+    }
+
+    public long cacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    public int cacheSize() {
+        return decisions.size();
+    }
+
+    private boolean evaluate(String fieldName) {
+        int length = fieldName.length();
+        if (length < keysByLength.length) {
+            for (String key : keysByLength[length]) {
+                if (fieldName.regionMatches(true, 0, key, 0, length)) {
+                    return true;
+                }
+            }
+        }
+        return keyPattern != null && keyPattern.matcher(fieldName).matches();
+    }
+}
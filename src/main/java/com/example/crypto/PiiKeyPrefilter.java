@@ -0,0 +1,213 @@
+package com.example.crypto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Raw-byte pre-filter that rules out documents which cannot contain a configured PII key.
+ * <p>
+ * Compiles the quoted, ASCII case-folded key names (e.g. {@code "ssn"}) into an Aho-Corasick automaton that is
+ * scanned over the document bytes in a single pass. The filter is conservative: a {@code false} answer from
+ * {@link #mayContainPii(byte[])} guarantees none of the configured keys (or regex matches) can be present, while
+ * {@code true} only means the document must be parsed.
+ * <ul>
+ *   <li>Any backslash in the document forces a parse: outside strings JSON has none, and inside a key any escape
+ *   ({@code \\u0073}, {@code \\/}, ...) can spell a configured name.</li>
+ *   <li>A key regex is only supported when it reduces to a required literal ({@code .*secret.*},
+ *   {@code ^secret$}, {@code secret.*}, ...); that literal is matched unquoted anywhere in the document.</li>
+ *   <li>Non-ASCII keys, keys needing JSON escapes, or any other regex shape disable the filter. So do keys with a
+ *   letter that a non-ASCII character case-folds to (the Kelvin sign U+212A matches {@code k}, the long s U+017F
+ *   matches {@code s}, ...), since the matchers compare case-insensitively but the automaton only folds ASCII.</li>
+ * </ul>
+ */
+public final class PiiKeyPrefilter {
+    private static final int ALPHABET = 256;
+    private static final Pattern REQUIRED_LITERAL =
+            Pattern.compile("^\\^?(?:\\.\\*)?([A-Za-z0-9_-]+)(?:\\.\\*)?\\$?$");
+    private static final PiiKeyPrefilter DISABLED = new PiiKeyPrefilter(null, null);
+    /** ASCII letters, lower-cased, that some non-ASCII character equals under case-insensitive comparison. */
+    private static final boolean[] NON_ASCII_FOLDS = nonAsciiFolds();
+
+    /** Flattened DFA: {@code delta[state * 256 + byte]} is the next state. */
+    private final int[] delta;
+    private final boolean[] accepting;
+
+    private PiiKeyPrefilter(int[] delta, boolean[] accepting) {
+        this.delta = delta;
+        this.accepting = accepting;
+    }
+
+    public static PiiKeyPrefilter disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * Builds a filter for the given rules, or returns {@link #disabled()} when the rules cannot be checked
+     * conservatively on raw bytes.
+     */
+    public static PiiKeyPrefilter compile(Collection<String> piiKeys, Pattern keyPattern) {
+        return compile(piiKeys, keyPattern, PiiPathTrie.empty());
+    }
+
+    /**
+     * As {@link #compile(Collection, Pattern)}, additionally requiring the last literal field name of each
+     * {@code pii.paths} selector; selectors without one (e.g. {@code $.*}) disable the filter.
+     */
+    public static PiiKeyPrefilter compile(Collection<String> piiKeys, Pattern keyPattern, PiiPathTrie paths) {
+        List<String> keys = new ArrayList<>();
+        if (piiKeys != null) {
+            keys.addAll(piiKeys);
+        }
+        if (!paths.isEmpty()) {
+            if (paths.anchorNames() == null) {
+                return DISABLED;
+            }
+            keys.addAll(paths.anchorNames());
+        }
+
+        List<byte[]> patterns = new ArrayList<>();
+        for (String key : keys) {
+            if (key == null || key.isBlank()) {
+                continue;
+            }
+            if (!isPlainAscii(key) || hasNonAsciiFold(key)) {
+                return DISABLED;
+            }
+            patterns.add(('"' + key.toLowerCase(Locale.ROOT) + '"').getBytes(StandardCharsets.US_ASCII));
+        }
+        if (keyPattern != null) {
+            Matcher m = REQUIRED_LITERAL.matcher(keyPattern.pattern());
+            int unicodeCase = Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+            if (!m.matches() || ((keyPattern.flags() & unicodeCase) == unicodeCase && hasNonAsciiFold(m.group(1)))) {
+                return DISABLED;
+            }
+            patterns.add(m.group(1).toLowerCase(Locale.ROOT).getBytes(StandardCharsets.US_ASCII));
+        }
+        if (patterns.isEmpty()) {
+            return DISABLED;
+        }
+        patterns.add("\\".getBytes(StandardCharsets.US_ASCII));
+        return build(patterns);
+    }
+
+    public boolean enabled() {
+        return delta != null;
+    }
+
+    public boolean mayContainPii(byte[] jsonDocument) {
+        Objects.requireNonNull(jsonDocument, "jsonDocument");
+        if (delta == null) {
+            return true;
+        }
+        int state = 0;
+        for (byte b : jsonDocument) {
+            state = delta[state * ALPHABET + (b & 0xFF)];
+            if (accepting[state]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isPlainAscii(String key) {
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c < 0x20 || c >= 0x7F || c == '"' || c == '\\') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasNonAsciiFold(String key) {
+        for (int i = 0; i < key.length(); i++) {
+            char c = Character.toLowerCase(key.charAt(i));
+            if (c < 0x80 && NON_ASCII_FOLDS[c]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Mirrors the per-char checks of {@link String#regionMatches(boolean, int, String, int, int)}. */
+    private static boolean[] nonAsciiFolds() {
+        boolean[] folds = new boolean[0x80];
+        for (int c = 0x80; c <= Character.MAX_VALUE; c++) {
+            int upper = Character.toUpperCase(c);
+            for (int folded : new int[] {Character.toLowerCase(c), upper, Character.toLowerCase(upper)}) {
+                if (folded < 0x80) {
+                    folds[Character.toLowerCase(folded)] = true;
+                }
+            }
+        }
+        return folds;
+    }
+
+    private static PiiKeyPrefilter build(List<byte[]> patterns) {
+        int maxStates = 1;
+        for (byte[] p : patterns) {
+            maxStates += p.length;
+        }
+
+        int[] delta = new int[maxStates * ALPHABET];
+        Arrays.fill(delta, -1);
+        boolean[] accepting = new boolean[maxStates];
+        int states = 1;
+        for (byte[] p : patterns) {
+            int state = 0;
+            for (byte b : p) {
+                int idx = state * ALPHABET + (b & 0xFF);
+                if (delta[idx] < 0) {
+                    delta[idx] = states++;
+                }
+                state = delta[idx];
+            }
+            accepting[state] = true;
+        }
+
+        // Breadth-first failure links, folded directly into the transition table.
+        int[] fail = new int[states];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < ALPHABET; c++) {
+            int next = delta[c];
+            if (next < 0) {
+                delta[c] = 0;
+            } else {
+                fail[next] = 0;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            accepting[state] |= accepting[fail[state]];
+            for (int c = 0; c < ALPHABET; c++) {
+                int idx = state * ALPHABET + c;
+                int next = delta[idx];
+                if (next < 0) {
+                    delta[idx] = delta[fail[state] * ALPHABET + c];
+                } else {
+                    fail[next] = delta[fail[state] * ALPHABET + c];
+                    queue.add(next);
+                }
+            }
+        }
+
+        // Patterns are lower-case; route upper-case ASCII through the same transitions.
+        for (int state = 0; state < states; state++) {
+            for (int c = 'A'; c <= 'Z'; c++) {
+                delta[state * ALPHABET + c] = delta[state * ALPHABET + c + ('a' - 'A')];
+            }
+        }
+
+        return new PiiKeyPrefilter(Arrays.copyOf(delta, states * ALPHABET), Arrays.copyOf(accepting, states));
+    }
+}
@@ -0,0 +1,320 @@
+package com.example.crypto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JSONPath-style PII field selectors compiled into a trie.
+ * <p>
+ * Supported syntax: {@code $.a.b}, {@code $['a']}, {@code .*} (any field), {@code [*]} (any array element) and
+ * {@code ..name} (field at any depth below). Field names compare case-insensitively, like {@code pii.keys}.
+ * <p>
+ * Traversal state is a {@link State}: the set of trie nodes that can still match at the current position.
+ * States are built lazily and shared (a DFA over node sets), so stepping into a field or array element does not
+ * allocate once warmed up. A {@linkplain State#isDead() dead} state means no selector can match anywhere below,
+ * letting callers skip the subtree.
+ */
+public final class PiiPathTrie {
+    private static final PiiPathTrie EMPTY = new PiiPathTrie(new Node(0), List.of(), List.of());
+
+    private final Map<String, State> states = new ConcurrentHashMap<>();
+    private final State root;
+    private final List<String> selectors;
+    private final List<String> anchorNames;
+
+    private PiiPathTrie(Node rootNode, List<String> selectors, List<String> anchorNames) {
+        this.selectors = List.copyOf(selectors);
+        this.anchorNames = anchorNames == null ? null : List.copyOf(anchorNames);
+        this.root = selectors.isEmpty() ? State.DEAD : canonical(closure(List.of(rootNode)));
+    }
+
+    public static PiiPathTrie empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Compiles the selectors; throws {@link IllegalArgumentException} for unsupported syntax.
+     */
+    public static PiiPathTrie compile(Collection<String> paths) {
+        if (paths == null || paths.isEmpty()) {
+            return EMPTY;
+        }
+        int[] nextId = {1};
+        Node rootNode = new Node(0);
+        List<String> selectors = new ArrayList<>();
+        List<String> anchors = new ArrayList<>();
+        for (String raw : paths) {
+            if (raw == null || raw.isBlank()) {
+                continue;
+            }
+            String path = raw.trim();
+            String anchor = parseInto(rootNode, path, nextId);
+            selectors.add(path);
+            if (anchors != null && anchor != null) {
+                anchors.add(anchor);
+            } else {
+                anchors = null;
+            }
+        }
+        if (selectors.isEmpty()) {
+            return EMPTY;
+        }
+        return new PiiPathTrie(rootNode, selectors, anchors);
+    }
+
+    public boolean isEmpty() {
+        return selectors.isEmpty();
+    }
+
+    public State root() {
+        return root;
+    }
+
+    public List<String> selectors() {
+        return selectors;
+    }
+
+    /**
+     * For each selector, the last literal field name on its path (a matching document must contain it as a key),
+     * or {@code null} when some selector has no literal name (e.g. {@code $.*}).
+     */
+    public List<String> anchorNames() {
+        return anchorNames;
+    }
+
+    private static String parseInto(Node rootNode, String path, int[] nextId) {
+        if (!path.startsWith("$")) {
+            throw invalid(path, "must start with $");
+        }
+        Node current = rootNode;
+        String anchor = null;
+        int i = 1;
+        if (i == path.length()) {
+            throw invalid(path, "must select at least one field");
+        }
+        while (i < path.length()) {
+            char c = path.charAt(i);
+            if (c == '.' && i + 1 < path.length() && path.charAt(i + 1) == '.') {
+                int end = nameEnd(path, i + 2);
+                String name = path.substring(i + 2, end);
+                if (name.isEmpty() || name.equals("*")) {
+                    throw invalid(path, "'..' must be followed by a field name");
+                }
+                if (current.descendant == null) {
+                    current.descendant = new Node(nextId[0]++);
+                    current.descendant.recursive = true;
+                }
+                current = current.descendant.child(name, nextId);
+                anchor = name;
+                i = end;
+            } else if (c == '.') {
+                int end = nameEnd(path, i + 1);
+                String name = path.substring(i + 1, end);
+                if (name.isEmpty()) {
+                    throw invalid(path, "empty field name");
+                }
+                if (name.equals("*")) {
+                    if (current.anyField == null) {
+                        current.anyField = new Node(nextId[0]++);
+                    }
+                    current = current.anyField;
+                } else {
+                    current = current.child(name, nextId);
+                    anchor = name;
+                }
+                i = end;
+            } else if (path.startsWith("[*]", i)) {
+                if (current.anyElement == null) {
+                    current.anyElement = new Node(nextId[0]++);
+                }
+                current = current.anyElement;
+                i += 3;
+            } else if (path.startsWith("['", i) || path.startsWith("[\"", i)) {
+                char quote = path.charAt(i + 1);
+                int close = path.indexOf(quote, i + 2);
+                if (close < 0 || close + 1 >= path.length() || path.charAt(close + 1) != ']' || close == i + 2) {
+                    throw invalid(path, "unterminated bracket field name");
+                }
+                String name = path.substring(i + 2, close);
+                current = current.child(name, nextId);
+                anchor = name;
+                i = close + 2;
+            } else {
+                throw invalid(path, "unexpected '" + c + "' at offset " + i);
+            }
+        }
+        current.terminal = true;
+        return anchor;
+    }
+
+    private static int nameEnd(String path, int start) {
+        int i = start;
+        while (i < path.length() && path.charAt(i) != '.' && path.charAt(i) != '[') {
+            i++;
+        }
+        return i;
+    }
+
+    private static IllegalArgumentException invalid(String path, String reason) {
+        return new IllegalArgumentException("Invalid pii.paths selector '" + path + "': " + reason);
+    }
+
+    private State canonical(Node[] nodes) {
+        if (nodes.length == 0) {
+            return State.DEAD;
+        }
+        StringBuilder key = new StringBuilder(nodes.length * 3);
+        for (Node n : nodes) {
+            key.append(n.id).append(',');
+        }
+        return states.computeIfAbsent(key.toString(), k -> new State(this, nodes));
+    }
+
+    /** Adds the descendant ("..") node of every member, sorted by id for a canonical key. */
+    private static Node[] closure(Collection<Node> nodes) {
+        Map<Integer, Node> byId = new TreeMap<>();
+        for (Node n : nodes) {
+            byId.put(n.id, n);
+            if (n.descendant != null) {
+                byId.put(n.descendant.id, n.descendant);
+            }
+        }
+        return byId.values().toArray(new Node[0]);
+    }
+
+    private static final class Node {
+        private final int id;
+        private final Map<String, Node> names = new LinkedHashMap<>();
+        private Node anyField;
+        private Node anyElement;
+        private Node descendant;
+        private boolean recursive;
+        private boolean terminal;
+
+        Node(int id) {
+            this.id = id;
+        }
+
+        Node child(String name, int[] nextId) {
+            return names.computeIfAbsent(name.toLowerCase(Locale.ROOT), k -> new Node(nextId[0]++));
+        }
+    }
+
+    /**
+     * Position in the document relative to the selectors. Immutable apart from lazily cached transitions.
+     */
+    public static final class State {
+        static final State DEAD = new State(null, new Node[0]);
+
+        private final PiiPathTrie trie;
+        private final Node[] nodes;
+        private final boolean terminal;
+        private final String[] explicitNames;
+        private final State[] explicitTargets;
+        private volatile State otherField;
+        private volatile State element;
+
+        private State(PiiPathTrie trie, Node[] nodes) {
+            this.trie = trie;
+            this.nodes = nodes;
+            boolean anyTerminal = false;
+            Set<String> names = new LinkedHashSet<>();
+            for (Node n : nodes) {
+                anyTerminal |= n.terminal;
+                names.addAll(n.names.keySet());
+            }
+            this.terminal = anyTerminal;
+            this.explicitNames = names.toArray(new String[0]);
+            this.explicitTargets = new State[explicitNames.length];
+        }
+
+        /** True when a selector ends exactly here, i.e. the value at this position must be encrypted. */
+        public boolean terminal() {
+            return terminal;
+        }
+
+        /** True when no selector can match at or below this position. */
+        public boolean isDead() {
+            return nodes.length == 0;
+        }
+
+        public State field(String name) {
+            if (nodes.length == 0 || name == null) {
+                return DEAD;
+            }
+            int length = name.length();
+            for (int i = 0; i < explicitNames.length; i++) {
+                String candidate = explicitNames[i];
+                if (candidate.length() == length && name.regionMatches(true, 0, candidate, 0, length)) {
+                    State target = explicitTargets[i];
+                    if (target == null) {
+                        target = step(candidate, false);
+                        explicitTargets[i] = target;
+                    }
+                    return target;
+                }
+            }
+            State target = otherField;
+            if (target == null) {
+                target = step(null, false);
+                otherField = target;
+            }
+            return target;
+        }
+
+        public State element() {
+            if (nodes.length == 0) {
+                return DEAD;
+            }
+            State target = element;
+            if (target == null) {
+                target = step(null, true);
+                element = target;
+            }
+            return target;
+        }
+
+        private State step(String lowerName, boolean arrayElement) {
+            List<Node> next = new ArrayList<>();
+            for (Node n : nodes) {
+                if (arrayElement) {
+                    if (n.anyElement != null) {
+                        next.add(n.anyElement);
+                    }
+                } else {
+                    if (lowerName != null) {
+                        Node child = n.names.get(lowerName);
+                        if (child != null) {
+                            next.add(child);
+                        }
+                    }
+                    if (n.anyField != null) {
+                        next.add(n.anyField);
+                    }
+                }
+                if (n.recursive) {
+                    next.add(n);
+                }
+            }
+            return trie.canonical(closure(next));
+        }
+
+        @Override
+        public String toString() {
+            int[] ids = new int[nodes.length];
+            for (int i = 0; i < nodes.length; i++) {
+                ids[i] = nodes[i].id;
+            }
+            return "State" + Arrays.toString(ids) + (terminal ? "*" : "");
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.crypto;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * Random IVs from either one shared {@link SecureRandom} or one DRBG instance per thread.
+ */
+final class RandomIvSource implements IvSource {
+    private final SecureRandom shared;
+    private final ThreadLocal<SecureRandom> perThread;
+
+    RandomIvSource(SecureRandom shared) {
+        this.shared = shared;
+        this.perThread = shared == null ? ThreadLocal.withInitial(RandomIvSource::newThreadRandom) : null;
+    }
+
+    @Override
+    public void nextIv(byte[] iv) {
+        (shared != null ? shared : perThread.get()).nextBytes(iv);
+    }
+
+    @Override
+    public String name() {
+        return shared != null ? "random" : "thread-local";
+    }
+
+    /** DRBG instances keep their own state, unlike NativePRNG which funnels every instance through one lock. */
+    private static SecureRandom newThreadRandom() {
+        try {
+            return SecureRandom.getInstance("DRBG");
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.crypto;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * Encrypts selected fields by splicing envelopes into the original bytes.
+ * <p>
+ * The document is parsed once to find the byte ranges of matched values (using parser token locations). The
+ * output is then assembled by copying the untouched ranges of the input verbatim and inserting the envelopes,
+ * so whitespace, field order and number formatting outside PII values are preserved byte for byte. Plaintext
+ * fed to the cipher is the compact serialization of the value, identical to {@link KeyScanPiiEncryptor}.
+ */
+public final class SplicingPiiEncryptor implements PiiEncryptor {
+    private static final int INITIAL_SPLICES = 8;
+
+    private final EnvelopeWriter envelopeWriter;
+    private final PiiFieldMatcher fieldMatcher;
+    private final PiiPathTrie pathTrie;
+    private final ObjectMapper mapper;
+    private final JsonFactory factory;
+
+    public SplicingPiiEncryptor(Encryptor encryptor, Collection<String> piiKeys, Pattern keyPattern) {
+        this(encryptor, piiKeys, keyPattern, new ObjectMapper());
+    }
+
+    public SplicingPiiEncryptor(
+            Encryptor encryptor, Collection<String> piiKeys, Pattern keyPattern, ObjectMapper mapper) {
+        this(encryptor, new PiiFieldMatcher(piiKeys, keyPattern), mapper);
+    }
+
+    public SplicingPiiEncryptor(Encryptor encryptor, PiiFieldMatcher fieldMatcher, ObjectMapper mapper) {
+        this(encryptor, fieldMatcher, PiiPathTrie.empty(), mapper);
+    }
+
+    public SplicingPiiEncryptor(
+            Encryptor encryptor, PiiFieldMatcher fieldMatcher, PiiPathTrie pathTrie, ObjectMapper mapper) {
+        this.envelopeWriter = new EnvelopeWriter(Objects.requireNonNull(encryptor, "encryptor"));
+        this.mapper = Objects.requireNonNull(mapper, "mapper");
+        this.factory = mapper.getFactory();
+        this.fieldMatcher = Objects.requireNonNull(fieldMatcher, "fieldMatcher");
+        this.pathTrie = Objects.requireNonNull(pathTrie, "pathTrie");
+    }
+
+    @Override
+    public byte[] encrypt(byte[] jsonDocument, String documentId) {
+        Objects.requireNonNull(jsonDocument, "jsonDocument");
+        Objects.requireNonNull(documentId, "documentId");
+        try (JsonParser parser = factory.createParser(jsonDocument)) {
+            JsonToken first = parser.nextToken();
+            if (first == null || !first.isStructStart()) {
+                return jsonDocument;
+            }
+
+            Splices splices = new Splices();
+            try (JsonGenerator envelopes = factory.createGenerator(splices.envelopeBytes)) {
+                envelopes.setRootValueSeparator(null);
+                collectSplices(parser, envelopes, splices, documentId);
+            }
+            return splices.count == 0 ? jsonDocument : splices.apply(jsonDocument);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid JSON input", e);
+        }
+    }
+
+    private void collectSplices(JsonParser parser, JsonGenerator envelopes, Splices splices, String documentId)
+            throws IOException {
+        PathStack containers = new PathStack();
+        PiiPathTrie.State valueState = pathTrie.root();
+        JsonToken token = parser.currentToken();
+        while (token != null) {
+            if (token == JsonToken.FIELD_NAME) {
+                String fieldName = parser.currentName();
+                token = parser.nextToken();
+                valueState = containers.top().field(fieldName);
+                if (valueState.terminal() || fieldMatcher.matches(fieldName)) {
+                    spliceValue(parser, envelopes, splices, documentId);
+                    token = parser.nextToken();
+                }
+                continue;
+            }
+
+            if (containers.inArray() && token != JsonToken.END_ARRAY) {
+                valueState = containers.top().element();
+                if (valueState.terminal()) {
+                    spliceValue(parser, envelopes, splices, documentId);
+                    token = parser.nextToken();
+                    continue;
+                }
+            }
+
+            if (token.isStructStart()) {
+                if (!containers.isEmpty() && !canMatchBelow(valueState)) {
+                    parser.skipChildren();
+                } else {
+                    containers.push(valueState, token == JsonToken.START_ARRAY);
+                }
+            } else if (token.isStructEnd() && containers.pop() == 0) {
+                break;
+            }
+            token = parser.nextToken();
+        }
+    }
+
+    private void spliceValue(JsonParser parser, JsonGenerator envelopes, Splices splices, String documentId)
+            throws IOException {
+        long valueStart = parser.currentTokenLocation().getByteOffset();
+        JsonNode value = mapper.readTree(parser);
+        long valueEnd = parser.currentLocation().getByteOffset();
+        if (value.isObject() && value.has("_enc")) {
+            return;
+        }
+        int envelopeStart = splices.envelopeBytes.size();
+        envelopeWriter.write(envelopes, mapper.writeValueAsBytes(value), documentId);
+        envelopes.flush();
+        splices.add((int) valueStart, (int) valueEnd, envelopeStart, splices.envelopeBytes.size());
+    }
+
+    private boolean canMatchBelow(PiiPathTrie.State state) {
+        return fieldMatcher.hasRules() || !state.isDead();
+    }
+
+
+    /**
+     * Replacement ranges in document order: {@code [sourceStart, sourceEnd)} of the input is replaced by
+     * {@code [envelopeStart, envelopeEnd)} of {@link #envelopeBytes}.
+     */
+    private static final class Splices {
+        private final ByteArrayBuilder envelopeBytes = new ByteArrayBuilder(512);
+        private int[] ranges = new int[INITIAL_SPLICES * 4];
+        private int count;
+
+        void add(int sourceStart, int sourceEnd, int envelopeStart, int envelopeEnd) {
+            if ((count + 1) * 4 > ranges.length) {
+                int[] grown = new int[ranges.length * 2];
+                System.arraycopy(ranges, 0, grown, 0, ranges.length);
+                ranges = grown;
+            }
+            int i = count * 4;
+            ranges[i] = sourceStart;
+            ranges[i + 1] = sourceEnd;
+            ranges[i + 2] = envelopeStart;
+            ranges[i + 3] = envelopeEnd;
+            count++;
+        }
+
+        byte[] apply(byte[] source) {
+            byte[] envelopes = envelopeBytes.toByteArray();
+            int length = source.length;
+            for (int i = 0; i < count * 4; i += 4) {
+                length += (ranges[i + 3] - ranges[i + 2]) - (ranges[i + 1] - ranges[i]);
+            }
+
+            byte[] out = new byte[length];
+            int sourcePos = 0;
+            int outPos = 0;
+            for (int i = 0; i < count * 4; i += 4) {
+                int keep = ranges[i] - sourcePos;
+                System.arraycopy(source, sourcePos, out, outPos, keep);
+                outPos += keep;
+                int envelopeLength = ranges[i + 3] - ranges[i + 2];
+                System.arraycopy(envelopes, ranges[i + 2], out, outPos, envelopeLength);
+                outPos += envelopeLength;
+                sourcePos = ranges[i + 1];
+            }
+            System.arraycopy(source, sourcePos, out, outPos, source.length - sourcePos);
+            return out;
+        }
+    }
+}
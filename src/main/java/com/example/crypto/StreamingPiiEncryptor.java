@@ -0,0 +1,133 @@
+package com.example.crypto;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * Encrypts selected fields by streaming tokens from the input to the output without building a tree.
+ * <p>
+ * Only the value subtree of a matched PII field is buffered; everything else is copied token by token, and
+ * subtrees that no {@code pii.paths} selector can reach are copied wholesale when no key rules apply. Output is
+ * equivalent to {@link KeyScanPiiEncryptor}: compact JSON with each matched value replaced by a
+ * {@code {"v":1,"_enc":{...}}} envelope.
+ */
+public final class StreamingPiiEncryptor implements PiiEncryptor {
+    private final EnvelopeWriter envelopeWriter;
+    private final PiiFieldMatcher fieldMatcher;
+    private final PiiPathTrie pathTrie;
+    private final ObjectMapper mapper;
+    private final JsonFactory factory;
+
+    public StreamingPiiEncryptor(Encryptor encryptor, Collection<String> piiKeys, Pattern keyPattern) {
+        this(encryptor, piiKeys, keyPattern, new ObjectMapper());
+    }
+
+    public StreamingPiiEncryptor(
+            Encryptor encryptor, Collection<String> piiKeys, Pattern keyPattern, ObjectMapper mapper) {
+        this(encryptor, new PiiFieldMatcher(piiKeys, keyPattern), mapper);
+    }
+
+    public StreamingPiiEncryptor(Encryptor encryptor, PiiFieldMatcher fieldMatcher, ObjectMapper mapper) {
+        this(encryptor, fieldMatcher, PiiPathTrie.empty(), mapper);
+    }
+
+    public StreamingPiiEncryptor(
+            Encryptor encryptor, PiiFieldMatcher fieldMatcher, PiiPathTrie pathTrie, ObjectMapper mapper) {
+        this.envelopeWriter = new EnvelopeWriter(Objects.requireNonNull(encryptor, "encryptor"));
+        this.mapper = Objects.requireNonNull(mapper, "mapper");
+        this.factory = mapper.getFactory();
+        this.fieldMatcher = Objects.requireNonNull(fieldMatcher, "fieldMatcher");
+        this.pathTrie = Objects.requireNonNull(pathTrie, "pathTrie");
+    }
+
+    @Override
+    public byte[] encrypt(byte[] jsonDocument, String documentId) {
+        Objects.requireNonNull(jsonDocument, "jsonDocument");
+        Objects.requireNonNull(documentId, "documentId");
+        try (JsonParser parser = factory.createParser(jsonDocument)) {
+            JsonToken first = parser.nextToken();
+            if (first == null || !first.isStructStart()) {
+                return jsonDocument;
+            }
+
+            ByteArrayBuilder out = new ByteArrayBuilder(jsonDocument.length + 256);
+            boolean mutated;
+            try (JsonGenerator generator = factory.createGenerator(out)) {
+                mutated = rewrite(parser, generator, documentId);
+            }
+            return mutated ? out.toByteArray() : jsonDocument;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid JSON input", e);
+        }
+    }
+
+    private boolean rewrite(JsonParser parser, JsonGenerator generator, String documentId) throws IOException {
+        boolean mutated = false;
+        PathStack containers = new PathStack();
+        PiiPathTrie.State valueState = pathTrie.root();
+        JsonToken token = parser.currentToken();
+        while (token != null) {
+            if (token == JsonToken.FIELD_NAME) {
+                String fieldName = parser.currentName();
+                generator.writeFieldName(fieldName);
+                token = parser.nextToken();
+                valueState = containers.top().field(fieldName);
+                if (valueState.terminal() || fieldMatcher.matches(fieldName)) {
+                    mutated |= encryptValue(parser, generator, documentId);
+                    token = parser.nextToken();
+                }
+                continue;
+            }
+
+            if (containers.inArray() && token != JsonToken.END_ARRAY) {
+                valueState = containers.top().element();
+                if (valueState.terminal()) {
+                    mutated |= encryptValue(parser, generator, documentId);
+                    token = parser.nextToken();
+                    continue;
+                }
+            }
+
+            if (token.isStructStart()) {
+                if (!containers.isEmpty() && !canMatchBelow(valueState)) {
+                    generator.copyCurrentStructure(parser);
+                    token = parser.nextToken();
+                    continue;
+                }
+                containers.push(valueState, token == JsonToken.START_ARRAY);
+                generator.copyCurrentEvent(parser);
+            } else {
+                generator.copyCurrentEvent(parser);
+                if (token.isStructEnd() && containers.pop() == 0) {
+                    break;
+                }
+            }
+            token = parser.nextToken();
+        }
+        return mutated;
+    }
+
+    /** Buffers the current value subtree and writes it encrypted; returns false if it already was. */
+    private boolean encryptValue(JsonParser parser, JsonGenerator generator, String documentId) throws IOException {
+        JsonNode value = mapper.readTree(parser);
+        if (value.isObject() && value.has("_enc")) {
+            mapper.writeTree(generator, value);
+            return false;
+        }
+        envelopeWriter.write(generator, mapper.writeValueAsBytes(value), documentId);
+        return true;
+    }
+
+    private boolean canMatchBelow(PiiPathTrie.State state) {
+        return fieldMatcher.hasRules() || !state.isDead();
+    }
+}
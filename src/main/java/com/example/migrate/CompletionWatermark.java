@@ -0,0 +1,47 @@
+package com.example.migrate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tracks out-of-order completions of a scan and reports the last ID of the contiguous completed prefix.
+ * <p>
+ * IDs are numbered {@code 0, 1, 2, ...} in scan order. {@link #complete(long, String)} may be called in any order;
+ * the watermark only moves once every earlier sequence number has completed, so everything up to and including
+ * {@link #watermark()} is done. Completions ahead of a gap are held until the gap closes. Not threadsafe; callers
+ * complete from a single sequential stage.
+ */
+final class CompletionWatermark {
+    private final Map<Long, String> completedAhead = new HashMap<>();
+    private long next;
+    private String watermark;
+
+    /** Records {@code seq} as done and returns the new watermark if it moved, otherwise {@code null}. */
+    String complete(long seq, String docId) {
+        if (seq < next || completedAhead.containsKey(seq)) {
+            throw new IllegalStateException("Sequence " + seq + " completed twice");
+        }
+        if (seq != next) {
+            completedAhead.put(seq, docId);
+            return null;
+        }
+        watermark = docId;
+        next++;
+        String ahead;
+        while ((ahead = completedAhead.remove(next)) != null) {
+            watermark = ahead;
+            next++;
+        }
+        return watermark;
+    }
+
+    /** Last ID of the contiguous completed prefix, or {@code null} if the first one is still pending. */
+    String watermark() {
+        return watermark;
+    }
+
+    /** Completions held behind a gap. */
+    int pending() {
+        return completedAhead.size();
+    }
+}
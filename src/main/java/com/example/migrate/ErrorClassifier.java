@@ -0,0 +1,59 @@
+package com.example.migrate;
+
+import com.couchbase.client.core.error.DocumentLockedException;
+import com.couchbase.client.core.error.DurabilityAmbiguousException;
+import com.couchbase.client.core.error.DurableWriteInProgressException;
+import com.couchbase.client.core.error.DurableWriteReCommitInProgressException;
+import com.couchbase.client.core.error.RateLimitedException;
+import com.couchbase.client.core.error.ServerOutOfMemoryException;
+import com.couchbase.client.core.error.TemporaryFailureException;
+
+/**
+ * Classifies stage failures by walking the cause chain.
+ */
+public final class ErrorClassifier {
+    private static final int MAX_CAUSE_DEPTH = 16;
+
+    private ErrorClassifier() {
+    }
+
+    /**
+     * True for errors that signal the cluster is overloaded (timeouts, temporary failures, server OOM), i.e. the
+     * request rate or concurrency should back off.
+     */
+    public static boolean isOverload(Throwable t) {
+        Throwable current = t;
+        for (int depth = 0; current != null && depth < MAX_CAUSE_DEPTH; depth++) {
+            if (current instanceof com.couchbase.client.core.error.TimeoutException
+                    || current instanceof java.util.concurrent.TimeoutException
+                    || current instanceof TemporaryFailureException
+                    || current instanceof ServerOutOfMemoryException) {
+                return true;
+            }
+            current = current.getCause();
+        }
+        return false;
+    }
+
+    /**
+     * True for errors worth retrying: overload signals plus ambiguous durable writes, sync writes in progress,
+     * locked documents and server-side rate limiting. Retrying an UPSERT is safe because it writes the same bytes.
+     */
+    public static boolean isTransient(Throwable t) {
+        if (isOverload(t)) {
+            return true;
+        }
+        Throwable current = t;
+        for (int depth = 0; current != null && depth < MAX_CAUSE_DEPTH; depth++) {
+            if (current instanceof DurabilityAmbiguousException
+                    || current instanceof DurableWriteInProgressException
+                    || current instanceof DurableWriteReCommitInProgressException
+                    || current instanceof DocumentLockedException
+                    || current instanceof RateLimitedException) {
+                return true;
+            }
+            current = current.getCause();
+        }
+        return false;
+    }
+}
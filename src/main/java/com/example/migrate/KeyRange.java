@@ -0,0 +1,42 @@
+package com.example.migrate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+
+/**
+ * Half-open document-key range {@code [startInclusive, endExclusive)}; a {@code null} bound is unbounded. Keys
+ * compare as unsigned UTF-8 bytes, the order KV range scans return them in.
+ */
+public record KeyRange(String startInclusive, String endExclusive) {
+    public static final Comparator<String> KEY_ORDER = KeyRange::compareKeys;
+
+    public KeyRange {
+        if (startInclusive != null && endExclusive != null && compareKeys(startInclusive, endExclusive) >= 0) {
+            throw new IllegalArgumentException(
+                    "Empty key range [" + startInclusive + ", " + endExclusive + ")");
+        }
+    }
+
+    public static KeyRange all() {
+        return new KeyRange(null, null);
+    }
+
+    public boolean contains(String key) {
+        return (startInclusive == null || compareKeys(key, startInclusive) >= 0)
+                && (endExclusive == null || compareKeys(key, endExclusive) < 0);
+    }
+
+    public static int compareKeys(String a, String b) {
+        byte[] ab = a.getBytes(StandardCharsets.UTF_8);
+        byte[] bb = b.getBytes(StandardCharsets.UTF_8);
+        int len = Math.min(ab.length, bb.length);
+        for (int i = 0; i < len; i++) {
+            int ai = ab[i] & 0xFF;
+            int bi = bb[i] & 0xFF;
+            if (ai != bi) {
+                return ai - bi;
+            }
+        }
+        return ab.length - bb.length;
+    }
+}
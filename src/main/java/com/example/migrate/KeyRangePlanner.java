@@ -0,0 +1,89 @@
+package com.example.migrate;
+
+import com.couchbase.client.java.ReactiveCollection;
+import com.couchbase.client.java.kv.ScanOptions;
+import com.couchbase.client.java.kv.ScanResult;
+import com.couchbase.client.java.kv.ScanType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import reactor.core.publisher.Mono;
+
+/**
+ * Splits the key space into contiguous {@link KeyRange}s, each scanned as its own stream.
+ * <p>
+ * Split points are either given explicitly or taken as quantiles of a {@link ScanType#samplingScan(long)} of
+ * document IDs. The ranges always cover the whole key space, so every document falls into exactly one of them.
+ */
+public final class KeyRangePlanner {
+    private final List<String> boundaries;
+    private final int partitions;
+    private final long sampleSize;
+
+    private KeyRangePlanner(List<String> boundaries, int partitions, long sampleSize) {
+        this.boundaries = boundaries;
+        this.partitions = partitions;
+        this.sampleSize = sampleSize;
+    }
+
+    public static KeyRangePlanner single() {
+        return new KeyRangePlanner(List.of(), 1, 0L);
+    }
+
+    /** Ranges split at the given keys, which must be strictly increasing. */
+    public static KeyRangePlanner explicit(List<String> boundaries) {
+        List<String> copy = List.copyOf(Objects.requireNonNull(boundaries, "boundaries"));
+        for (int i = 1; i < copy.size(); i++) {
+            if (KeyRange.compareKeys(copy.get(i - 1), copy.get(i)) >= 0) {
+                throw new IllegalArgumentException("Partition boundaries must be strictly increasing: " + copy);
+            }
+        }
+        return new KeyRangePlanner(copy, copy.size() + 1, 0L);
+    }
+
+    /** Up to {@code partitions} ranges split at quantiles of {@code sampleSize} randomly sampled IDs. */
+    public static KeyRangePlanner sampling(int partitions, long sampleSize) {
+        if (partitions <= 0) {
+            throw new IllegalArgumentException("partitions must be > 0");
+        }
+        if (partitions > 1 && sampleSize < partitions) {
+            throw new IllegalArgumentException("sampleSize must be >= partitions");
+        }
+        return partitions == 1 ? single() : new KeyRangePlanner(null, partitions, sampleSize);
+    }
+
+    public Mono<List<KeyRange>> plan(ReactiveCollection source) {
+        if (boundaries != null) {
+            return Mono.just(rangesFromBoundaries(boundaries));
+        }
+        return source.scan(ScanType.samplingScan(sampleSize), ScanOptions.scanOptions().idsOnly(true))
+                .map(ScanResult::id)
+                .collectList()
+                .map(ids -> splitAtQuantiles(ids, partitions));
+    }
+
+    static List<KeyRange> splitAtQuantiles(List<String> sampledIds, int partitions) {
+        List<String> sorted = new ArrayList<>(sampledIds);
+        sorted.sort(KeyRange.KEY_ORDER);
+        List<String> splits = new ArrayList<>();
+        for (int i = 1; i < partitions && !sorted.isEmpty(); i++) {
+            int index = (int) ((long) i * sorted.size() / partitions);
+            String candidate = sorted.get(index);
+            if (index > 0 && (splits.isEmpty() || KeyRange.compareKeys(splits.get(splits.size() - 1), candidate) < 0)) {
+                splits.add(candidate);
+            }
+        }
+        return rangesFromBoundaries(splits);
+    }
+
+    private static List<KeyRange> rangesFromBoundaries(List<String> splits) {
+        List<KeyRange> ranges = new ArrayList<>(splits.size() + 1);
+        String start = null;
+        for (String split : splits) {
+            ranges.add(new KeyRange(start, split));
+            start = split;
+        }
+        ranges.add(new KeyRange(start, null));
+        return List.copyOf(ranges);
+    }
+}
@@ -3,23 +3,31 @@ package com.example.migrate;
 import com.couchbase.client.core.msg.kv.DurabilityLevel;
 import com.couchbase.client.java.ReactiveCollection;
 import com.couchbase.client.java.codec.RawJsonTranscoder;
-import com.couchbase.client.java.kv.GetOptions;
 import com.couchbase.client.java.kv.ScanOptions;
 import com.couchbase.client.java.kv.ScanResult;
 import com.couchbase.client.java.kv.ScanTerm;
 import com.couchbase.client.java.kv.ScanType;
 import com.couchbase.client.java.kv.UpsertOptions;
-import com.example.crypto.KeyScanPiiEncryptor;
+import com.example.crypto.PiiEncryptor;
+import com.example.crypto.PiiKeyPrefilter;
+import com.example.ops.AdaptiveConcurrencyLimiter;
+import com.example.ops.AsyncCheckpointer;
 import com.example.ops.CheckpointStore;
+import com.example.ops.CircuitBreaker;
+import com.example.ops.CpuPool;
 import com.example.ops.KillSwitch;
-import com.example.ops.QuarantineWriter;
+import com.example.ops.QuarantineSink;
 import com.example.ops.RateLimiter;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
-import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
@@ -31,171 +39,487 @@ public final class MigrationJob {
     private static final Logger log = LoggerFactory.getLogger(MigrationJob.class);
 
     private final ReactiveCollection source;
+    private final SourceReader sourceReader;
     private final ReactiveCollection destination;
-    private final KeyScanPiiEncryptor piiEncryptor;
-    private final RateLimiter rateLimiter;
-    private final CheckpointStore checkpointStore;
-    private final QuarantineWriter quarantineWriter;
+    private final PiiEncryptor piiEncryptor;
+    private final PiiKeyPrefilter prefilter;
+    private final CpuPool encryptPool;
+    private final RateLimits rateLimits;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final RetryPolicies retryPolicies;
+    private final CircuitBreakers circuitBreakers;
+    private final AsyncCheckpointer checkpointer;
+    private final QuarantineSink quarantineSink;
     private final KillSwitch killSwitch;
+    private final KeyRangePlanner keyRangePlanner;
+    private final ScanBatchTuner scanBatchTuner;
     private final Config config;
+    private final AtomicBoolean stopRequested = new AtomicBoolean(false);
+    /** Key ranges of the running {@link #run()} or {@link #replay}, guarded by itself; empty when idle. */
+    private volatile List<PartitionCursor> active = List.of();
 
     public MigrationJob(
             ReactiveCollection source,
+            SourceReader sourceReader,
             ReactiveCollection destination,
-            KeyScanPiiEncryptor piiEncryptor,
-            RateLimiter rateLimiter,
-            CheckpointStore checkpointStore,
-            QuarantineWriter quarantineWriter,
+            PiiEncryptor piiEncryptor,
+            PiiKeyPrefilter prefilter,
+            CpuPool encryptPool,
+            RateLimits rateLimits,
+            AdaptiveConcurrencyLimiter concurrencyLimiter,
+            RetryPolicies retryPolicies,
+            CircuitBreakers circuitBreakers,
+            AsyncCheckpointer checkpointer,
+            QuarantineSink quarantineSink,
             KillSwitch killSwitch,
+            KeyRangePlanner keyRangePlanner,
+            ScanBatchTuner scanBatchTuner,
             Config config) {
         this.source = Objects.requireNonNull(source, "source");
+        this.sourceReader = Objects.requireNonNull(sourceReader, "sourceReader");
         this.destination = Objects.requireNonNull(destination, "destination");
         this.piiEncryptor = Objects.requireNonNull(piiEncryptor, "piiEncryptor");
-        this.rateLimiter = Objects.requireNonNull(rateLimiter, "rateLimiter");
-        this.checkpointStore = Objects.requireNonNull(checkpointStore, "checkpointStore");
-        this.quarantineWriter = Objects.requireNonNull(quarantineWriter, "quarantineWriter");
+        this.prefilter = Objects.requireNonNull(prefilter, "prefilter");
+        this.encryptPool = Objects.requireNonNull(encryptPool, "encryptPool");
+        this.rateLimits = Objects.requireNonNull(rateLimits, "rateLimits");
+        this.concurrencyLimiter = Objects.requireNonNull(concurrencyLimiter, "concurrencyLimiter");
+        this.retryPolicies = Objects.requireNonNull(retryPolicies, "retryPolicies");
+        this.circuitBreakers = Objects.requireNonNull(circuitBreakers, "circuitBreakers");
+        this.checkpointer = Objects.requireNonNull(checkpointer, "checkpointer");
+        this.quarantineSink = Objects.requireNonNull(quarantineSink, "quarantineSink");
         this.killSwitch = Objects.requireNonNull(killSwitch, "killSwitch");
+        this.keyRangePlanner = Objects.requireNonNull(keyRangePlanner, "keyRangePlanner");
+        this.scanBatchTuner = Objects.requireNonNull(scanBatchTuner, "scanBatchTuner");
         this.config = Objects.requireNonNull(config, "config");
     }
 
     public Mono<CheckpointStore.Checkpoint> run() {
-        Optional<CheckpointStore.Checkpoint> loaded = checkpointStore.load();
-        AtomicReference<String> resumeAfterDocId = new AtomicReference<>(loaded.map(CheckpointStore.Checkpoint::lastSuccessfulDocId).orElse(null));
-        AtomicLong scanned = new AtomicLong(loaded.map(CheckpointStore.Checkpoint::scanned).orElse(0L));
-        AtomicLong encrypted = new AtomicLong(loaded.map(CheckpointStore.Checkpoint::encrypted).orElse(0L));
-        AtomicLong written = new AtomicLong(loaded.map(CheckpointStore.Checkpoint::written).orElse(0L));
-        AtomicLong quarantined = new AtomicLong(loaded.map(CheckpointStore.Checkpoint::quarantined).orElse(0L));
+        Optional<CheckpointStore.Checkpoint> loaded = checkpointer.store().load();
         AtomicLong completedSinceCheckpoint = new AtomicLong(0L);
 
-        GetOptions getOptions = GetOptions.getOptions().transcoder(RawJsonTranscoder.INSTANCE);
         UpsertOptions upsertOptions = UpsertOptions.upsertOptions()
                 .transcoder(RawJsonTranscoder.INSTANCE)
                 .durability(config.durabilityLevel());
 
-        ScanType scanType = scanTypeForResume(resumeAfterDocId.get());
-        ScanOptions scanOptions = ScanOptions.scanOptions().idsOnly(true);
-        AtomicBoolean stopRequested = new AtomicBoolean(false);
-        AtomicReference<String> lastScanId = new AtomicReference<>(null);
-        AtomicBoolean resumeBlockedByFailure = new AtomicBoolean(false);
+        return resolvePartitions(loaded).flatMap(partitions -> {
+            active = partitions;
+            // All ranges share the concurrency limiter, so the in-flight budget is global rather than per range.
+            List<Flux<DocOutcome>> perPartition = new ArrayList<>(partitions.size());
+            for (PartitionCursor partition : partitions) {
+                if (partition.status != CheckpointStore.PartitionStatus.COMPLETE) {
+                    perPartition.add(scanPartition(partition, stopRequested, upsertOptions));
+                }
+            }
+            if (partitions.size() > 1) {
+                log.info("Scanning {} of {} key ranges concurrently", perPartition.size(), partitions.size());
+            }
+
+            return Flux.merge(perPartition)
+                    .concatMap(outcome -> {
+                        synchronized (partitions) {
+                            return Mono.just(recordOutcome(outcome, partitions, completedSinceCheckpoint));
+                        }
+                    })
+                    .then(Mono.fromCallable(() -> {
+                        if (stopRequested.get()) {
+                            log.info("Scan stopped early; in-flight documents finished, writing final checkpoint");
+                        }
+                        CheckpointStore.Checkpoint checkpoint = snapshot(partitions);
+                        checkpointer.publish(checkpoint);
+                        checkpointer.flush();
+                        return checkpoint;
+                    }).subscribeOn(Schedulers.boundedElastic()))
+                    .doFinally(ignored -> active = List.of());
+        });
+    }
+
+    /** Applies one outcome to its range's cursor and side list; called with the partitions list locked. */
+    private DocOutcome recordOutcome(
+            DocOutcome outcome, List<PartitionCursor> partitions, AtomicLong completedSinceCheckpoint) {
+        PartitionCursor partition = outcome.partition();
+        if (outcome.kind() == OutcomeKind.SCAN_DONE) {
+            // Dry runs never complete a range: nothing was written, so a real run must scan it.
+            if (!partition.resumeBlockedByFailure
+                    && partition.quarantinedIds.isEmpty()
+                    && !config.dryRun()) {
+                partition.status = CheckpointStore.PartitionStatus.COMPLETE;
+            }
+            return outcome;
+        }
+        if (outcome.isRetry()) {
+            if (outcome.wroteToDestination()) {
+                partition.quarantinedIds.remove(outcome.docId());
+            }
+        } else {
+            if (outcome.kind() == OutcomeKind.QUARANTINED && !partition.recordQuarantined(outcome.docId())) {
+                if (!partition.resumeBlockedByFailure) {
+                    log.warn("Key range {} has more than {} quarantined documents; "
+                                    + "its resume cursor stops advancing for the rest of the run",
+                            partition.index, PartitionCursor.MAX_QUARANTINED_IDS);
+                }
+                partition.resumeBlockedByFailure = true;
+            }
+            // Quarantined IDs are in the side list, so the cursor may move past them.
+            String watermark = partition.watermark.complete(outcome.seq(), outcome.docId());
+            if (watermark != null && !partition.resumeBlockedByFailure && !config.dryRun()) {
+                partition.lastSuccessfulDocId = watermark;
+            }
+        }
+
+        long completed = completedSinceCheckpoint.incrementAndGet();
+        if (config.checkpointEvery() > 0 && completed % config.checkpointEvery() == 0) {
+            // Hand-off only: the checkpointer's writer thread does the I/O.
+            checkpointer.publish(snapshot(partitions));
+            if (concurrencyLimiter.isAdaptive()) {
+                log.info("Concurrency limit {} (in flight {}) after {} documents",
+                        concurrencyLimiter.limit(), concurrencyLimiter.inFlight(), completed);
+            }
+        }
+        return outcome;
+    }
+
+    /**
+     * Stops a running scan or replay: no new IDs are taken, documents already in flight finish and the job then
+     * writes its final checkpoint as usual.
+     */
+    public void requestStop() {
+        stopRequested.set(true);
+    }
 
-        Flux<String> ids = source.scan(scanType, scanOptions)
-                .map(ScanResult::id)
+    /**
+     * Saves and fsyncs a checkpoint of the running job's current state, for when it cannot drain in time. Cursors
+     * only cover finished documents, so the checkpoint is safe to resume from. Empty if no ranges are being tracked.
+     */
+    public Optional<CheckpointStore.Checkpoint> checkpointNow() {
+        List<PartitionCursor> partitions = active;
+        if (partitions.isEmpty()) {
+            return Optional.empty();
+        }
+        CheckpointStore.Checkpoint checkpoint = snapshot(partitions);
+        checkpointer.publish(checkpoint);
+        checkpointer.flush();
+        return Optional.of(checkpoint);
+    }
+
+    /**
+     * Reprocesses {@code docIds}, typically read back from the quarantine store, through the same stages, limits and
+     * concurrency as a scan. Each ID written to the destination is passed to {@code onResolved} and dropped from its
+     * key range's side list; cursors and range statuses are left as they are. Counters and side lists are
+     * checkpointed as in a scan if a checkpoint exists; without one there are no key ranges to record, so nothing is
+     * checkpointed.
+     */
+    public Mono<ReplayResult> replay(List<String> docIds, Consumer<String> onResolved) {
+        Objects.requireNonNull(docIds, "docIds");
+        Objects.requireNonNull(onResolved, "onResolved");
+        List<PartitionCursor> partitions = new ArrayList<>();
+        List<CheckpointStore.Partition> saved = checkpointer.store().load()
+                .map(CheckpointStore.Checkpoint::partitions)
+                .orElse(List.of());
+        for (int i = 0; i < saved.size(); i++) {
+            partitions.add(PartitionCursor.resume(i, saved.get(i)));
+        }
+        PartitionCursor unrecorded = new PartitionCursor(-1, KeyRange.all());
+        UpsertOptions upsertOptions = UpsertOptions.upsertOptions()
+                .transcoder(RawJsonTranscoder.INSTANCE)
+                .durability(config.durabilityLevel());
+        AtomicLong replayed = new AtomicLong();
+        AtomicLong written = new AtomicLong();
+        AtomicLong quarantined = new AtomicLong();
+        active = partitions;
+
+        return Flux.fromIterable(docIds)
                 .index()
                 .handle((Tuple2<Long, String> t, reactor.core.publisher.SynchronousSink<String> sink) -> {
+                    if (stopRequested.get() || killSwitch.engaged()) {
+                        log.warn("Stopping replay after {} of {} ids", t.getT1(), docIds.size());
+                        sink.complete();
+                        return;
+                    }
+                    sink.next(t.getT2());
+                })
+                .flatMap(docId -> process(
+                                docId, null, DocOutcome.RETRY, partitionOf(partitions, docId, unrecorded), upsertOptions),
+                        config.maxInFlight())
+                .concatMap(outcome -> {
+                    synchronized (partitions) {
+                        recordReplayOutcome(outcome, partitions, onResolved, replayed, written, quarantined);
+                    }
+                    return Mono.just(outcome);
+                })
+                .then(Mono.fromCallable(() -> {
+                    if (!partitions.isEmpty()) {
+                        checkpointer.publish(snapshot(partitions));
+                        checkpointer.flush();
+                    }
+                    return new ReplayResult(replayed.get(), written.get(), quarantined.get());
+                }).subscribeOn(Schedulers.boundedElastic()))
+                .doFinally(ignored -> active = List.of());
+    }
+
+    private void recordReplayOutcome(
+            DocOutcome outcome,
+            List<PartitionCursor> partitions,
+            Consumer<String> onResolved,
+            AtomicLong replayed,
+            AtomicLong written,
+            AtomicLong quarantined) {
+        PartitionCursor partition = outcome.partition();
+        if (outcome.wroteToDestination()) {
+            written.incrementAndGet();
+            partition.quarantinedIds.remove(outcome.docId());
+            onResolved.accept(outcome.docId());
+        } else if (outcome.kind() == OutcomeKind.QUARANTINED) {
+            quarantined.incrementAndGet();
+            // Best effort: a full side list only means a later scan will not retry it; the store has it.
+            partition.recordQuarantined(outcome.docId());
+        }
+        long done = replayed.incrementAndGet();
+        if (!partitions.isEmpty() && config.checkpointEvery() > 0 && done % config.checkpointEvery() == 0) {
+            checkpointer.publish(snapshot(partitions));
+        }
+    }
+
+    private static PartitionCursor partitionOf(List<PartitionCursor> partitions, String docId, PartitionCursor fallback) {
+        for (PartitionCursor partition : partitions) {
+            if (partition.range.contains(docId)) {
+                return partition;
+            }
+        }
+        return fallback;
+    }
+
+    /**
+     * Ranges recorded in the checkpoint win over the planner, so a resumed run keeps the split it started with.
+     */
+    private Mono<List<PartitionCursor>> resolvePartitions(Optional<CheckpointStore.Checkpoint> loaded) {
+        List<CheckpointStore.Partition> saved = loaded.map(CheckpointStore.Checkpoint::partitions).orElse(List.of());
+        if (!saved.isEmpty()) {
+            List<PartitionCursor> partitions = new ArrayList<>(saved.size());
+            for (int i = 0; i < saved.size(); i++) {
+                partitions.add(PartitionCursor.resume(i, saved.get(i)));
+            }
+            return Mono.just(partitions);
+        }
+
+        return keyRangePlanner.plan(source).map(ranges -> {
+            List<PartitionCursor> partitions = new ArrayList<>(ranges.size());
+            for (int i = 0; i < ranges.size(); i++) {
+                partitions.add(new PartitionCursor(i, ranges.get(i)));
+            }
+            return partitions;
+        });
+    }
+
+    private Flux<DocOutcome> scanPartition(
+            PartitionCursor partition,
+            AtomicBoolean stopRequested,
+            UpsertOptions upsertOptions) {
+        AtomicReference<String> lastScanId = new AtomicReference<>(null);
+        AtomicBoolean stoppedEarly = new AtomicBoolean(false);
+        partition.status = CheckpointStore.PartitionStatus.IN_PROGRESS;
+
+        Flux<ScanResult> results = scanRounds(partition, stopRequested, stoppedEarly)
+                .index()
+                .handle((Tuple2<Long, ScanResult> t, reactor.core.publisher.SynchronousSink<ScanResult> sink) -> {
                     long idx = t.getT1();
-                    String docId = t.getT2();
+                    String docId = t.getT2().id();
                     if (stopRequested.get()) {
+                        stoppedEarly.set(true);
                         sink.complete();
                         return;
                     }
                     String prev = lastScanId.getAndSet(docId);
-                    if (prev != null && compareKeyUtf8Unsigned(docId, prev) < 0) {
+                    if (prev != null && KeyRange.compareKeys(docId, prev) < 0) {
                         sink.error(new IllegalStateException(
-                                "RangeScan returned non-monotonic IDs; cannot safely resume using lastSuccessfulDocId (prev="
+                                "RangeScan returned non-monotonic IDs in key range " + partition.index
+                                        + "; cannot safely resume using lastSuccessfulDocId (prev="
                                         + prev + ", current=" + docId + ")"));
                         return;
                     }
-                    if (idx > 0 && idx % 1000 == 0 && killSwitch.engaged()) {
+                    // A cached flag once the kill switch is started, so it is checked per ID. Completing here only stops
+                    // the scan: documents already in flight finish and the final checkpoint is still written.
+                    if (killSwitch.engaged()) {
                         stopRequested.set(true);
-                        log.warn("Kill switch engaged; stopping scan after {} ids", idx);
+                        stoppedEarly.set(true);
+                        log.warn("Kill switch engaged; stopping scan of key range {} after {} ids", partition.index, idx);
                         sink.complete();
                         return;
                     }
-                    sink.next(docId);
+                    sink.next(t.getT2());
                 });
 
-        Flux<DocOutcome> outcomes = ids
-                .flatMapSequential(
-                        docId -> processOne(docId, getOptions, upsertOptions, scanned, encrypted, written)
-                                .onErrorResume(e -> {
-                                    quarantined.incrementAndGet();
-                                    quarantineWriter.write(docId, stageFrom(e), e);
-                                    return Mono.just(DocOutcome.quarantined(docId));
-                                }),
+        // Documents quarantined by an earlier run sit at or before the cursor; retry them before scanning on. Gated like
+        // replay(), so a stop or the kill switch does not wait for the whole side list.
+        List<String> retryIds = List.copyOf(partition.quarantinedIds);
+        Flux<DocOutcome> retries = Flux.fromIterable(retryIds)
+                .index()
+                .handle((Tuple2<Long, String> t, reactor.core.publisher.SynchronousSink<String> sink) -> {
+                    if (stopRequested.get() || killSwitch.engaged()) {
+                        stopRequested.set(true);
+                        stoppedEarly.set(true);
+                        log.warn("Stopping retries of key range {} after {} of {} ids",
+                                partition.index, t.getT1(), retryIds.size());
+                        sink.complete();
+                        return;
+                    }
+                    sink.next(t.getT2());
+                })
+                .flatMap(docId -> process(docId, null, DocOutcome.RETRY, partition, upsertOptions),
                         config.maxInFlight());
+        // Unordered: a slow document does not hold back the window; the watermark restores scan order for the cursor.
+        Flux<DocOutcome> scanned = results.index()
+                .flatMap(t -> process(
+                                t.getT2().id(),
+                                t.getT2().idOnly() ? null : t.getT2().contentAsBytes(),
+                                t.getT1(),
+                                partition,
+                                upsertOptions),
+                        config.maxInFlight());
+
+        return Flux.concat(retries, scanned)
+                .concatWith(Mono.fromSupplier(() -> new DocOutcome(partition, null, DocOutcome.RETRY, OutcomeKind.SCAN_DONE))
+                        .filter(ignored -> !stoppedEarly.get()));
+    }
 
-        return outcomes.concatMap(outcome -> {
-                    if (outcome.kind() == OutcomeKind.QUARANTINED) {
-                        resumeBlockedByFailure.set(true);
+    /**
+     * The range's RangeScan, as one scan or (when auto-tuning) as rounds of {@link ScanBatchTuner#roundSize()} items,
+     * each restarted after the previous round's last ID with re-tuned batch limits. A stop or kill switch seen between
+     * rounds sets {@code stoppedEarly}, so the range is not reported as scanned to the end.
+     */
+    private Flux<ScanResult> scanRounds(
+            PartitionCursor partition, AtomicBoolean stopRequested, AtomicBoolean stoppedEarly) {
+        if (!scanBatchTuner.isAutoTune()) {
+            return source.scan(partition.scanType(null), scanOptions());
+        }
+        AtomicReference<String> roundCursor = new AtomicReference<>(null);
+        AtomicLong roundItems = new AtomicLong();
+        return Flux.defer(() -> {
+                    if (roundItems.getAndSet(0) > 0) {
+                        scanBatchTuner.endRound();
                     }
-                    if (outcome.wroteToDestination() && !resumeBlockedByFailure.get()) {
-                        resumeAfterDocId.set(outcome.docId());
+                    return source.scan(partition.scanType(roundCursor.get()), scanOptions())
+                            .take(scanBatchTuner.roundSize())
+                            .doOnNext(result -> {
+                                roundCursor.set(result.id());
+                                roundItems.incrementAndGet();
+                                scanBatchTuner.recordItem(
+                                        result.idOnly() ? 0 : result.contentAsBytes().length,
+                                        concurrencyLimiter.inFlight() < concurrencyLimiter.limit());
+                            });
+                })
+                .repeat(() -> {
+                    if (roundItems.get() < scanBatchTuner.roundSize()) {
+                        // A short round: the range is exhausted.
+                        return false;
                     }
-
-                    long completed = completedSinceCheckpoint.incrementAndGet();
-                    if (config.checkpointEvery() > 0 && completed % config.checkpointEvery() == 0) {
-                        CheckpointStore.Checkpoint checkpoint = snapshot(resumeAfterDocId.get(), scanned, encrypted, written, quarantined);
-                        return Mono.fromRunnable(() -> checkpointStore.save(checkpoint))
-                                .subscribeOn(Schedulers.boundedElastic())
-                                .thenReturn(outcome);
+                    if (stopRequested.get() || killSwitch.engaged()) {
+                        stopRequested.set(true);
+                        stoppedEarly.set(true);
+                        return false;
                     }
-                    return Mono.just(outcome);
+                    return true;
+                });
+    }
+
+    private ScanOptions scanOptions() {
+        return scanBatchTuner.apply(ScanOptions.scanOptions()
+                .idsOnly(config.scanMode() == ScanMode.IDS)
+                .transcoder(RawJsonTranscoder.INSTANCE));
+    }
+
+    /** {@code content} is the body delivered by a content scan, or {@code null} to fetch it with a GET. */
+    private Mono<DocOutcome> process(
+            String docId,
+            byte[] content,
+            long seq,
+            PartitionCursor partition,
+            UpsertOptions upsertOptions) {
+        return concurrencyLimiter.acquire()
+                .flatMap(permit -> processOne(docId, content, partition, permit, upsertOptions)
+                        .doOnSuccess(ignored -> permit.release())
+                        .doOnError(e -> {
+                            if (ErrorClassifier.isOverload(e)) {
+                                permit.releaseDropped();
+                            } else {
+                                permit.release();
+                            }
+                        })
+                        .doFinally(ignored -> permit.release()))
+                .onErrorResume(e -> {
+                    partition.quarantined.incrementAndGet();
+                    quarantineSink.record(docId, stageFrom(e), e);
+                    return Mono.just(OutcomeKind.QUARANTINED);
                 })
-                .then(Mono.fromCallable(() -> {
-                    CheckpointStore.Checkpoint checkpoint = snapshot(resumeAfterDocId.get(), scanned, encrypted, written, quarantined);
-                    checkpointStore.save(checkpoint);
-                    return checkpoint;
-                }).subscribeOn(Schedulers.boundedElastic()));
+                .map(kind -> new DocOutcome(partition, docId, seq, kind));
     }
 
-    private Mono<DocOutcome> processOne(
+    private Mono<OutcomeKind> processOne(
             String docId,
-            GetOptions getOptions,
-            UpsertOptions upsertOptions,
-            AtomicLong scanned,
-            AtomicLong encrypted,
-            AtomicLong written) {
+            byte[] content,
+            PartitionCursor partition,
+            AdaptiveConcurrencyLimiter.Permit permit,
+            UpsertOptions upsertOptions) {
         return Mono.defer(() -> {
-            scanned.incrementAndGet();
-            return source.get(docId, getOptions)
-                    .onErrorMap(e -> new StageException("GET", e))
-                    .map(getResult -> getResult.contentAsBytes())
-                    .flatMap(bytes -> Mono.fromRunnable(rateLimiter::acquire)
-                            .subscribeOn(Schedulers.boundedElastic())
+            partition.scanned.incrementAndGet();
+            return rateLimits.reads().acquireAsync()
+                    .onErrorMap(e -> new StageException("RATE_LIMIT", e))
+                    .then(content != null
+                            ? Mono.just(content)
+                            : retryPolicies.get().apply(circuitBreakers.get().guard(timed(sourceReader.get(docId), permit)))
+                                    .onErrorMap(e -> new StageException("GET", e))
+                                    .map(getResult -> getResult.contentAsBytes()))
+                    .flatMap(bytes -> rateLimits.readBytes().acquireAsync(bytes.length)
                             .onErrorMap(e -> new StageException("RATE_LIMIT", e))
                             .thenReturn(bytes))
-                    .map(bytes -> {
+                    // Parsing and AES run on the CPU pool so the SDK event loops only do I/O.
+                    .flatMap(bytes -> encryptPool.submit(() -> {
+                        if (!prefilter.mayContainPii(bytes)) {
+                            partition.prefiltered.incrementAndGet();
+                            return bytes;
+                        }
                         try {
                             byte[] out = piiEncryptor.encrypt(bytes, docId);
                             if (out != bytes) {
-                                encrypted.incrementAndGet();
+                                partition.encrypted.incrementAndGet();
                             }
                             return out;
                         } catch (RuntimeException e) {
                             throw new StageException("ENCRYPT", e);
                         }
-                    })
+                    }))
                     .flatMap(payload -> {
                         if (config.dryRun()) {
-                            return Mono.just(DocOutcome.dryRun(docId));
+                            return Mono.just(OutcomeKind.DRY_RUN);
                         }
-                        return destination.upsert(docId, payload, upsertOptions)
-                                .onErrorMap(e -> new StageException("UPSERT", e))
-                                .doOnSuccess(ignored -> written.incrementAndGet())
-                                .thenReturn(DocOutcome.written(docId));
+                        return rateLimits.writes().acquireAsync()
+                                .then(rateLimits.writeBytes().acquireAsync(payload.length))
+                                .onErrorMap(e -> new StageException("RATE_LIMIT", e))
+                                .then(retryPolicies.upsert()
+                                        .apply(circuitBreakers.upsert().guard(
+                                                timed(Mono.defer(() -> destination.upsert(docId, payload, upsertOptions)), permit)))
+                                        .onErrorMap(e -> new StageException("UPSERT", e)))
+                                .doOnSuccess(ignored -> partition.written.incrementAndGet())
+                                .thenReturn(OutcomeKind.WRITTEN);
                     });
         });
     }
 
-    private static ScanType scanTypeForResume(String lastSuccessfulDocId) {
-        if (lastSuccessfulDocId == null || lastSuccessfulDocId.isBlank()) {
-            return ScanType.rangeScan(null, null);
-        }
-        return ScanType.rangeScan(ScanTerm.exclusive(lastSuccessfulDocId), null);
+    /** Adds the call's latency to the permit on success, feeding the adaptive concurrency limit. */
+    private static <T> Mono<T> timed(Mono<T> call, AdaptiveConcurrencyLimiter.Permit permit) {
+        return Mono.defer(() -> {
+            long startedAt = System.nanoTime();
+            return call.doOnSuccess(ignored -> permit.recordLatency(System.nanoTime() - startedAt));
+        });
     }
 
-    private static CheckpointStore.Checkpoint snapshot(
-            String lastSuccessId,
-            AtomicLong scanned,
-            AtomicLong encrypted,
-            AtomicLong written,
-            AtomicLong quarantined) {
-        return new CheckpointStore.Checkpoint(
-                lastSuccessId,
-                scanned.get(),
-                encrypted.get(),
-                written.get(),
-                quarantined.get());
+    private static CheckpointStore.Checkpoint snapshot(List<PartitionCursor> partitions) {
+        List<CheckpointStore.Partition> saved = new ArrayList<>(partitions.size());
+        synchronized (partitions) {
+            for (PartitionCursor partition : partitions) {
+                saved.add(partition.toCheckpoint());
+            }
+        }
+        return CheckpointStore.Checkpoint.of(saved);
     }
 
     private static String stageFrom(Throwable t) {
@@ -205,25 +529,12 @@ public final class MigrationJob {
         return "UNKNOWN";
     }
 
-    private static int compareKeyUtf8Unsigned(String a, String b) {
-        byte[] ab = a.getBytes(StandardCharsets.UTF_8);
-        byte[] bb = b.getBytes(StandardCharsets.UTF_8);
-        int len = Math.min(ab.length, bb.length);
-        for (int i = 0; i < len; i++) {
-            int ai = ab[i] & 0xFF;
-            int bi = bb[i] & 0xFF;
-            if (ai != bi) {
-                return ai - bi;
-            }
-        }
-        return ab.length - bb.length;
-    }
-
     public record Config(
             int maxInFlight,
             int checkpointEvery,
             boolean dryRun,
-            DurabilityLevel durabilityLevel) {
+            DurabilityLevel durabilityLevel,
+            ScanMode scanMode) {
         public Config {
             if (maxInFlight <= 0) {
                 throw new IllegalArgumentException("maxInFlight must be > 0");
@@ -232,26 +543,89 @@ public final class MigrationJob {
                 throw new IllegalArgumentException("checkpointEvery must be >= 0");
             }
             durabilityLevel = Objects.requireNonNull(durabilityLevel, "durabilityLevel");
+            scanMode = Objects.requireNonNull(scanMode, "scanMode");
+        }
+
+        public Config(int maxInFlight, int checkpointEvery, boolean dryRun, DurabilityLevel durabilityLevel) {
+            this(maxInFlight, checkpointEvery, dryRun, durabilityLevel, ScanMode.IDS);
+        }
+    }
+
+    /** How document bodies reach the pipeline. */
+    public enum ScanMode {
+        /** ID-only RangeScan followed by one GET per document. */
+        IDS,
+        /** RangeScan returning bodies, saving the per-document GET round trip. */
+        CONTENT
+    }
+
+    /**
+     * Token buckets applied per document: {@code reads}/{@code writes} are charged one permit per GET/UPSERT,
+     * {@code readBytes}/{@code writeBytes} one permit per byte fetched or written (after encryption).
+     */
+    public record RateLimits(
+            RateLimiter reads,
+            RateLimiter readBytes,
+            RateLimiter writes,
+            RateLimiter writeBytes) {
+        public RateLimits {
+            reads = Objects.requireNonNull(reads, "reads");
+            readBytes = Objects.requireNonNull(readBytes, "readBytes");
+            writes = Objects.requireNonNull(writes, "writes");
+            writeBytes = Objects.requireNonNull(writeBytes, "writeBytes");
+        }
+
+        public static RateLimits unlimited() {
+            return new RateLimits(
+                    RateLimiter.unlimited(), RateLimiter.unlimited(), RateLimiter.unlimited(), RateLimiter.unlimited());
+        }
+    }
+
+    /** Retry policies for the I/O stages; failures they give up on are quarantined. */
+    public record RetryPolicies(RetryPolicy get, RetryPolicy upsert) {
+        public RetryPolicies {
+            get = Objects.requireNonNull(get, "get");
+            upsert = Objects.requireNonNull(upsert, "upsert");
+        }
+
+        public static RetryPolicies none() {
+            return new RetryPolicies(RetryPolicy.none(), RetryPolicy.none());
+        }
+    }
+
+    /**
+     * Breakers around each GET and UPSERT attempt. An open breaker holds attempts rather than failing them, which
+     * pauses the scan through backpressure until a half-open probe succeeds.
+     */
+    public record CircuitBreakers(CircuitBreaker get, CircuitBreaker upsert) {
+        public CircuitBreakers {
+            get = Objects.requireNonNull(get, "get");
+            upsert = Objects.requireNonNull(upsert, "upsert");
+        }
+
+        public static CircuitBreakers disabled() {
+            return new CircuitBreakers(CircuitBreaker.disabled("get"), CircuitBreaker.disabled("upsert"));
         }
     }
 
     private enum OutcomeKind {
         WRITTEN,
         DRY_RUN,
-        QUARANTINED
+        QUARANTINED,
+        /** Marker emitted after a key range's scan was exhausted (not stopped early) and all its documents finished. */
+        SCAN_DONE
     }
 
-    private record DocOutcome(String docId, OutcomeKind kind) {
-        static DocOutcome written(String docId) {
-            return new DocOutcome(docId, OutcomeKind.WRITTEN);
-        }
+    /** Documents processed by {@link #replay}; those neither written nor quarantined were dry runs. */
+    public record ReplayResult(long replayed, long written, long quarantined) {
+    }
 
-        static DocOutcome dryRun(String docId) {
-            return new DocOutcome(docId, OutcomeKind.DRY_RUN);
-        }
+    /** {@code seq} is the document's position in its range's scan, or {@link #RETRY} for side-list retries. */
+    private record DocOutcome(PartitionCursor partition, String docId, long seq, OutcomeKind kind) {
+        static final long RETRY = -1L;
 
-        static DocOutcome quarantined(String docId) {
-            return new DocOutcome(docId, OutcomeKind.QUARANTINED);
+        boolean isRetry() {
+            return seq == RETRY;
         }
 
         boolean wroteToDestination() {
@@ -259,6 +633,102 @@ public final class MigrationJob {
         }
     }
 
+    /**
+     * Scan position and counters of one key range; cursor, status, watermark and quarantine side list change only in
+     * the sequential outcome stage.
+     */
+    private static final class PartitionCursor {
+        /** Cap on the per-range quarantine side list, keeping checkpoints small. */
+        static final int MAX_QUARANTINED_IDS = 1000;
+
+        private final int index;
+        private final KeyRange range;
+        private final AtomicLong scanned;
+        private final AtomicLong encrypted;
+        private final AtomicLong written;
+        private final AtomicLong quarantined;
+        private final AtomicLong prefiltered;
+        private final Set<String> quarantinedIds;
+        private final CompletionWatermark watermark = new CompletionWatermark();
+        private volatile String lastSuccessfulDocId;
+        private volatile CheckpointStore.PartitionStatus status = CheckpointStore.PartitionStatus.PENDING;
+        private volatile boolean resumeBlockedByFailure;
+
+        PartitionCursor(int index, KeyRange range) {
+            this(index, range, null, CheckpointStore.PartitionStatus.PENDING, 0, 0, 0, 0, 0, List.of());
+        }
+
+        private PartitionCursor(
+                int index,
+                KeyRange range,
+                String lastSuccessfulDocId,
+                CheckpointStore.PartitionStatus status,
+                long scanned,
+                long encrypted,
+                long written,
+                long quarantined,
+                long prefiltered,
+                List<String> quarantinedIds) {
+            this.index = index;
+            this.range = range;
+            this.lastSuccessfulDocId = lastSuccessfulDocId;
+            this.status = status;
+            this.scanned = new AtomicLong(scanned);
+            this.encrypted = new AtomicLong(encrypted);
+            this.written = new AtomicLong(written);
+            this.quarantined = new AtomicLong(quarantined);
+            this.prefiltered = new AtomicLong(prefiltered);
+            this.quarantinedIds = new LinkedHashSet<>(quarantinedIds);
+        }
+
+        static PartitionCursor resume(int index, CheckpointStore.Partition saved) {
+            return new PartitionCursor(
+                    index,
+                    new KeyRange(saved.startInclusive(), saved.endExclusive()),
+                    saved.lastSuccessfulDocId(),
+                    saved.status(),
+                    saved.scanned(),
+                    saved.encrypted(),
+                    saved.written(),
+                    saved.quarantined(),
+                    saved.prefiltered(),
+                    saved.quarantinedIds());
+        }
+
+        /** Adds {@code docId} to the side list; {@code false} if the list is full and the ID could not be kept. */
+        boolean recordQuarantined(String docId) {
+            if (quarantinedIds.size() >= MAX_QUARANTINED_IDS && !quarantinedIds.contains(docId)) {
+                return false;
+            }
+            quarantinedIds.add(docId);
+            return true;
+        }
+
+        /** Scan from after {@code afterId}, or from the cursor (or range start) when it is {@code null}. */
+        ScanType scanType(String afterId) {
+            String after = afterId != null ? afterId : lastSuccessfulDocId;
+            ScanTerm from = after != null
+                    ? ScanTerm.exclusive(after)
+                    : range.startInclusive() != null ? ScanTerm.inclusive(range.startInclusive()) : null;
+            ScanTerm to = range.endExclusive() != null ? ScanTerm.exclusive(range.endExclusive()) : null;
+            return ScanType.rangeScan(from, to);
+        }
+
+        CheckpointStore.Partition toCheckpoint() {
+            return new CheckpointStore.Partition(
+                    range.startInclusive(),
+                    range.endExclusive(),
+                    lastSuccessfulDocId,
+                    status,
+                    scanned.get(),
+                    encrypted.get(),
+                    written.get(),
+                    quarantined.get(),
+                    prefiltered.get(),
+                    List.copyOf(quarantinedIds));
+        }
+    }
+
     public static final class StageException extends RuntimeException {
         private final String stage;
 
@@ -0,0 +1,83 @@
+package com.example.migrate;
+
+import com.example.ops.RetryBudget;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import reactor.util.retry.RetryBackoffSpec;
+
+/**
+ * Retries one pipeline stage on {@link ErrorClassifier#isTransient transient} errors with jittered exponential
+ * backoff, drawing each retry from a shared {@link RetryBudget}. When attempts run out, the budget is spent or the
+ * error is permanent, the last error is passed on unchanged.
+ */
+public final class RetryPolicy {
+    private final int maxAttempts;
+    private final RetryBudget budget;
+    private final RetryBackoffSpec spec;
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+
+    private RetryPolicy(int maxAttempts, Duration initialBackoff, Duration maxBackoff, double jitter, RetryBudget budget) {
+        this.maxAttempts = maxAttempts;
+        this.budget = budget;
+        this.spec = Retry.backoff(Math.max(0, maxAttempts - 1), initialBackoff)
+                .maxBackoff(maxBackoff)
+                .jitter(jitter)
+                .filter(ErrorClassifier::isTransient)
+                .doBeforeRetryAsync(signal -> budget.tryRetry() ? Mono.empty() : Mono.error(signal.failure()))
+                .doAfterRetry(ignored -> retries.increment())
+                .onRetryExhaustedThrow((ignored, signal) -> {
+                    exhausted.increment();
+                    return signal.failure();
+                });
+    }
+
+    public static RetryPolicy create(
+            int maxAttempts, Duration initialBackoff, Duration maxBackoff, double jitter, RetryBudget budget) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be >= 1");
+        }
+        Objects.requireNonNull(initialBackoff, "initialBackoff");
+        Objects.requireNonNull(maxBackoff, "maxBackoff");
+        if (initialBackoff.isNegative() || maxBackoff.compareTo(initialBackoff) < 0) {
+            throw new IllegalArgumentException("require 0 <= initialBackoff <= maxBackoff");
+        }
+        if (!(jitter >= 0.0 && jitter <= 1.0)) {
+            throw new IllegalArgumentException("jitter must be within [0, 1]");
+        }
+        return new RetryPolicy(maxAttempts, initialBackoff, maxBackoff, jitter, Objects.requireNonNull(budget, "budget"));
+    }
+
+    /** A single attempt, no retries. */
+    public static RetryPolicy none() {
+        return create(1, Duration.ZERO, Duration.ZERO, 0.0, RetryBudget.unlimited());
+    }
+
+    /** Applies the policy to {@code call}, which is re-subscribed for every attempt. */
+    public <T> Mono<T> apply(Mono<T> call) {
+        if (maxAttempts == 1) {
+            return call;
+        }
+        return Mono.defer(() -> {
+            budget.recordRequest();
+            return call.retryWhen(spec);
+        });
+    }
+
+    public int maxAttempts() {
+        return maxAttempts;
+    }
+
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("maxAttempts", maxAttempts);
+        metrics.put("retries", retries.sum());
+        metrics.put("exhausted", exhausted.sum());
+        return metrics;
+    }
+}
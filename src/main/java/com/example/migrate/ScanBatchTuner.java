@@ -0,0 +1,133 @@
+package com.example.migrate;
+
+import com.couchbase.client.java.kv.ScanOptions;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * RangeScan batch limits ({@code batchItemLimit}/{@code batchByteLimit}), fixed or tuned between scan rounds.
+ * <p>
+ * In auto-tune mode each scanned item reports its body size and whether the pipeline had free in-flight slots when
+ * it arrived (i.e. processing was waiting on the scan). At the end of a round the item limit doubles if more than
+ * {@link #STARVED_HIGH} of the round's items found the pipeline starved, and shrinks by a quarter below
+ * {@link #STARVED_LOW} (the scan is comfortably ahead, so large batches only add buffering). The byte limit follows
+ * the item limit times the average body size, capped at {@code maxBatchBytes}. Limits take effect on the next round.
+ */
+public final class ScanBatchTuner {
+    static final double STARVED_HIGH = 0.05;
+    static final double STARVED_LOW = 0.01;
+    static final int MIN_ITEMS = 10;
+    private static final double SIZE_ALPHA = 0.05;
+
+    private final boolean autoTune;
+    private final int maxItems;
+    private final int maxBatchBytes;
+    private final long roundSize;
+
+    // Guarded by this.
+    private int itemLimit;
+    private int byteLimit;
+    private double avgDocBytes;
+    private long roundItems;
+    private long roundStarved;
+    private long rounds;
+
+    private ScanBatchTuner(boolean autoTune, int itemLimit, int byteLimit, int maxItems, int maxBatchBytes, long roundSize) {
+        this.autoTune = autoTune;
+        this.itemLimit = itemLimit;
+        this.byteLimit = byteLimit;
+        this.maxItems = maxItems;
+        this.maxBatchBytes = maxBatchBytes;
+        this.roundSize = roundSize;
+    }
+
+    /** Fixed limits; {@code 0} leaves the SDK default. */
+    public static ScanBatchTuner fixed(int itemLimit, int byteLimit) {
+        if (itemLimit < 0 || byteLimit < 0) {
+            throw new IllegalArgumentException("batch limits must be >= 0");
+        }
+        return new ScanBatchTuner(false, itemLimit, byteLimit, itemLimit, byteLimit, Long.MAX_VALUE);
+    }
+
+    /** Starts at {@code initialItems} and tunes within {@code [MIN_ITEMS, maxItems]}, re-planning every round. */
+    public static ScanBatchTuner autoTune(int initialItems, int maxItems, int maxBatchBytes, long roundSize) {
+        if (maxItems < MIN_ITEMS || initialItems < MIN_ITEMS || initialItems > maxItems) {
+            throw new IllegalArgumentException("require " + MIN_ITEMS + " <= initialItems <= maxItems");
+        }
+        if (maxBatchBytes <= 0) {
+            throw new IllegalArgumentException("maxBatchBytes must be > 0");
+        }
+        if (roundSize <= 0) {
+            throw new IllegalArgumentException("roundSize must be > 0");
+        }
+        return new ScanBatchTuner(true, initialItems, 0, maxItems, maxBatchBytes, roundSize);
+    }
+
+    public boolean isAutoTune() {
+        return autoTune;
+    }
+
+    /** Items per scan round; the scan restarts after the last scanned ID with the re-tuned limits. */
+    public long roundSize() {
+        return roundSize;
+    }
+
+    /** Applies the current limits to {@code options}. */
+    public synchronized ScanOptions apply(ScanOptions options) {
+        if (itemLimit > 0) {
+            options.batchItemLimit(itemLimit);
+        }
+        if (byteLimit > 0) {
+            options.batchByteLimit(byteLimit);
+        }
+        return options;
+    }
+
+    /** Records one scanned item: its body size (0 for ID-only scans) and whether the pipeline was waiting for it. */
+    public synchronized void recordItem(int bytes, boolean pipelineStarved) {
+        if (bytes > 0) {
+            avgDocBytes = avgDocBytes == 0 ? bytes : avgDocBytes + SIZE_ALPHA * (bytes - avgDocBytes);
+        }
+        roundItems++;
+        if (pipelineStarved) {
+            roundStarved++;
+        }
+    }
+
+    /** Re-tunes the limits from the items recorded since the previous round. */
+    public synchronized void endRound() {
+        if (!autoTune || roundItems == 0) {
+            return;
+        }
+        double starved = (double) roundStarved / roundItems;
+        if (starved > STARVED_HIGH) {
+            itemLimit = Math.min(maxItems, itemLimit * 2);
+        } else if (starved < STARVED_LOW) {
+            itemLimit = Math.max(MIN_ITEMS, itemLimit - itemLimit / 4);
+        }
+        if (avgDocBytes > 0) {
+            byteLimit = (int) Math.min(maxBatchBytes, Math.ceil(itemLimit * avgDocBytes));
+        }
+        roundItems = 0;
+        roundStarved = 0;
+        rounds++;
+    }
+
+    public synchronized int itemLimit() {
+        return itemLimit;
+    }
+
+    public synchronized int byteLimit() {
+        return byteLimit;
+    }
+
+    public synchronized Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("autoTune", autoTune);
+        metrics.put("batchItemLimit", itemLimit);
+        metrics.put("batchByteLimit", byteLimit);
+        metrics.put("avgDocBytes", (long) avgDocBytes);
+        metrics.put("rounds", rounds);
+        return metrics;
+    }
+}
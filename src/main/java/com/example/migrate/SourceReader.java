@@ -0,0 +1,143 @@
+package com.example.migrate;
+
+import com.couchbase.client.java.ReactiveCollection;
+import com.couchbase.client.java.codec.RawJsonTranscoder;
+import com.couchbase.client.java.kv.GetAnyReplicaOptions;
+import com.couchbase.client.java.kv.GetOptions;
+import com.couchbase.client.java.kv.GetResult;
+import com.example.ops.LatencyTracker;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Fetches source documents by ID from the active copy, from any replica, or hedged.
+ * <p>
+ * Reading replicas is only safe because source writes are frozen before a run. In {@link Mode#HEDGED} mode the
+ * active GET is sent first; if it has not returned after the tracked latency quantile (but at least
+ * {@code minHedgeDelay}), a {@code getAnyReplica} is sent as well and whichever returns first wins. An error from
+ * the active GET is reported as is; a failed hedge is ignored. No hedges are sent until the latency window has
+ * filled. The quantile tracks active GETs only; one cancelled because the hedge won is sampled at its elapsed time,
+ * a lower bound, so slow primaries keep pulling the estimate up instead of dropping out of it.
+ */
+public final class SourceReader {
+    private final ReactiveCollection source;
+    private final Mode mode;
+    private final LatencyTracker latency;
+    private final long minHedgeDelayNanos;
+    private final GetOptions getOptions = GetOptions.getOptions().transcoder(RawJsonTranscoder.INSTANCE);
+    private final GetAnyReplicaOptions replicaOptions =
+            GetAnyReplicaOptions.getAnyReplicaOptions().transcoder(RawJsonTranscoder.INSTANCE);
+    private final LongAdder gets = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+
+    private SourceReader(ReactiveCollection source, Mode mode, LatencyTracker latency, Duration minHedgeDelay) {
+        this.source = Objects.requireNonNull(source, "source");
+        this.mode = Objects.requireNonNull(mode, "mode");
+        this.latency = latency;
+        this.minHedgeDelayNanos = minHedgeDelay.toNanos();
+    }
+
+    public static SourceReader active(ReactiveCollection source) {
+        return new SourceReader(source, Mode.ACTIVE, null, Duration.ZERO);
+    }
+
+    public static SourceReader anyReplica(ReactiveCollection source) {
+        return new SourceReader(source, Mode.REPLICA, null, Duration.ZERO);
+    }
+
+    public static SourceReader hedged(ReactiveCollection source, LatencyTracker latency, Duration minHedgeDelay) {
+        Objects.requireNonNull(latency, "latency");
+        if (minHedgeDelay.isNegative()) {
+            throw new IllegalArgumentException("minHedgeDelay must be >= 0");
+        }
+        return new SourceReader(source, Mode.HEDGED, latency, minHedgeDelay);
+    }
+
+    public Mono<GetResult> get(String docId) {
+        return Mono.defer(() -> {
+            gets.increment();
+            return switch (mode) {
+                case ACTIVE -> source.get(docId, getOptions);
+                case REPLICA -> source.getAnyReplica(docId, replicaOptions).cast(GetResult.class);
+                case HEDGED -> hedgedGet(docId);
+            };
+        });
+    }
+
+    private Mono<GetResult> hedgedGet(String docId) {
+        Mono<GetResult> primary = timed(source.get(docId, getOptions), latency);
+        long estimate = latency.estimateNanos();
+        if (estimate < 0) {
+            return primary;
+        }
+        return hedge(
+                primary,
+                () -> source.getAnyReplica(docId, replicaOptions).cast(GetResult.class),
+                Duration.ofNanos(Math.max(estimate, minHedgeDelayNanos)),
+                hedges::increment,
+                hedgeWins::increment);
+    }
+
+    /** Records the time from subscription to completion, or to cancellation, of {@code mono}; errors are not sampled. */
+    static <T> Mono<T> timed(Mono<T> mono, LatencyTracker latency) {
+        return Mono.defer(() -> {
+            long startedAt = System.nanoTime();
+            return mono.doFinally(signal -> {
+                if (signal != SignalType.ON_ERROR) {
+                    latency.record(System.nanoTime() - startedAt);
+                }
+            });
+        });
+    }
+
+    /**
+     * Races {@code primary} against {@code backup} started after {@code delay}. The first value wins and cancels the
+     * other; a primary error ends the race, a backup error is ignored.
+     */
+    static <T> Mono<T> hedge(
+            Mono<T> primary, Supplier<Mono<T>> backup, Duration delay, Runnable onHedge, Runnable onHedgeWin) {
+        Mono<T> delayed = Mono.delay(delay)
+                .then(Mono.defer(() -> {
+                    onHedge.run();
+                    return backup.get();
+                }))
+                .onErrorResume(e -> Mono.never())
+                .doOnNext(ignored -> onHedgeWin.run());
+        return Mono.firstWithSignal(primary, delayed);
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("mode", mode.toString());
+        metrics.put("gets", gets.sum());
+        if (mode == Mode.HEDGED) {
+            metrics.put("hedges", hedges.sum());
+            metrics.put("hedgeWins", hedgeWins.sum());
+            metrics.put("hedgeQuantile", latency.quantile());
+            metrics.put("hedgeDelayMicros", TimeUnit.NANOSECONDS.toMicros(
+                    Math.max(latency.estimateNanos(), minHedgeDelayNanos)));
+        }
+        return metrics;
+    }
+
+    public enum Mode {
+        /** GET from the active copy. */
+        ACTIVE,
+        /** {@code getAnyReplica}: the first of the active and replica copies to answer. */
+        REPLICA,
+        /** Active GET, hedged with a replica read past the latency quantile. */
+        HEDGED
+    }
+}
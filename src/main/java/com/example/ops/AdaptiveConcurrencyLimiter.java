@@ -0,0 +1,219 @@
+package com.example.ops;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+/**
+ * Async gate on the number of documents in flight, with an optional AIMD (additive increase, multiplicative
+ * decrease) limit.
+ * <p>
+ * Callers take a {@link Permit} before starting a document and release it when done, reporting the I/O latency
+ * observed (or that the request was dropped by an overload error). In adaptive mode the limit grows by roughly one
+ * per limit's worth of successful releases while the short-term latency average stays within
+ * {@link #LATENCY_TOLERANCE} of the long-term average, and shrinks by {@link #BACKOFF_RATIO} on a drop or latency
+ * spike (at most once per long-term latency interval). The limit never leaves {@code [min, max]}; in fixed mode it
+ * stays at {@code max}. Waiting for a permit holds no thread.
+ */
+public final class AdaptiveConcurrencyLimiter {
+    static final double LATENCY_TOLERANCE = 2.0;
+    static final double BACKOFF_RATIO = 0.9;
+    private static final double SHORT_ALPHA = 0.2;
+    private static final double LONG_ALPHA = 0.02;
+
+    private final boolean adaptive;
+    private final int min;
+    private final int max;
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+    private final AtomicInteger peakLimit;
+    private final AtomicInteger lowLimit;
+
+    // Guarded by this.
+    private double limit;
+    private int inFlight;
+    private double shortLatencyNanos;
+    private double longLatencyNanos;
+    private long lastDecreaseNanos;
+    private long drops;
+    private long decreases;
+
+    private AdaptiveConcurrencyLimiter(boolean adaptive, int initial, int min, int max) {
+        this.adaptive = adaptive;
+        this.min = min;
+        this.max = max;
+        this.limit = initial;
+        this.lastDecreaseNanos = System.nanoTime() - TimeUnit.DAYS.toNanos(1);
+        this.peakLimit = new AtomicInteger(initial);
+        this.lowLimit = new AtomicInteger(initial);
+    }
+
+    public static AdaptiveConcurrencyLimiter fixed(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be > 0");
+        }
+        return new AdaptiveConcurrencyLimiter(false, limit, limit, limit);
+    }
+
+    public static AdaptiveConcurrencyLimiter adaptive(int initial, int min, int max) {
+        if (min <= 0 || max < min) {
+            throw new IllegalArgumentException("require 0 < min <= max");
+        }
+        if (initial < min || initial > max) {
+            throw new IllegalArgumentException("initial must be within [min, max]");
+        }
+        return new AdaptiveConcurrencyLimiter(true, initial, min, max);
+    }
+
+    /** Emits a permit once the number in flight is below the current limit. */
+    public Mono<Permit> acquire() {
+        return Mono.<Permit>create(sink -> {
+            Waiter waiter = new Waiter(sink);
+            Permit granted = null;
+            synchronized (this) {
+                if (waiters.isEmpty() && inFlight < currentLimit()) {
+                    inFlight++;
+                    granted = new Permit();
+                } else {
+                    waiters.addLast(waiter);
+                }
+            }
+            if (granted != null) {
+                waiter.grant(granted);
+                return;
+            }
+            sink.onCancel(() -> waiter.cancel(this));
+        }).doOnDiscard(Permit.class, Permit::release);
+    }
+
+    public synchronized int limit() {
+        return currentLimit();
+    }
+
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    public synchronized Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("adaptive", adaptive);
+        metrics.put("limit", currentLimit());
+        metrics.put("minObserved", lowLimit.get());
+        metrics.put("maxObserved", peakLimit.get());
+        metrics.put("ceiling", max);
+        metrics.put("drops", drops);
+        metrics.put("decreases", decreases);
+        metrics.put("longLatencyMicros", TimeUnit.NANOSECONDS.toMicros((long) longLatencyNanos));
+        return metrics;
+    }
+
+    private int currentLimit() {
+        return (int) limit;
+    }
+
+    private void onRelease(long latencyNanos, boolean dropped) {
+        Deque<Waiter> ready = new ArrayDeque<>();
+        synchronized (this) {
+            inFlight--;
+            if (adaptive) {
+                adjust(latencyNanos, dropped);
+            }
+            while (!waiters.isEmpty() && inFlight < currentLimit()) {
+                ready.add(waiters.pollFirst());
+                inFlight++;
+            }
+        }
+        for (Waiter waiter : ready) {
+            waiter.grant(new Permit());
+        }
+    }
+
+    private void adjust(long latencyNanos, boolean dropped) {
+        if (latencyNanos > 0) {
+            if (longLatencyNanos == 0) {
+                shortLatencyNanos = latencyNanos;
+                longLatencyNanos = latencyNanos;
+            } else {
+                shortLatencyNanos += SHORT_ALPHA * (latencyNanos - shortLatencyNanos);
+                longLatencyNanos += LONG_ALPHA * (latencyNanos - longLatencyNanos);
+            }
+        }
+        if (dropped) {
+            drops++;
+        }
+        boolean congested = dropped || shortLatencyNanos > longLatencyNanos * LATENCY_TOLERANCE;
+        long now = System.nanoTime();
+        if (congested) {
+            if (now - lastDecreaseNanos >= (long) longLatencyNanos) {
+                lastDecreaseNanos = now;
+                decreases++;
+                limit = Math.max(min, limit * BACKOFF_RATIO);
+                lowLimit.accumulateAndGet(currentLimit(), Math::min);
+            }
+        } else if (latencyNanos > 0) {
+            limit = Math.min(max, limit + 1.0 / limit);
+            peakLimit.accumulateAndGet(currentLimit(), Math::max);
+        }
+    }
+
+    /** A slot in the gate; releasing more than once has no effect. */
+    public final class Permit {
+        private final AtomicBoolean released = new AtomicBoolean();
+        private long latencyNanos;
+
+        private Permit() {
+        }
+
+        /** Adds the latency of one I/O call made under this permit. */
+        public void recordLatency(long nanos) {
+            latencyNanos += nanos;
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                onRelease(latencyNanos, false);
+            }
+        }
+
+        /** Releases after an overload signal (timeout, temporary failure), forcing a decrease. */
+        public void releaseDropped() {
+            if (released.compareAndSet(false, true)) {
+                onRelease(latencyNanos, true);
+            }
+        }
+    }
+
+    private static final class Waiter {
+        private final MonoSink<Permit> sink;
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        Waiter(MonoSink<Permit> sink) {
+            this.sink = sink;
+        }
+
+        void grant(Permit permit) {
+            if (done.compareAndSet(false, true)) {
+                sink.success(permit);
+            } else {
+                permit.release();
+            }
+        }
+
+        void cancel(AdaptiveConcurrencyLimiter limiter) {
+            if (done.compareAndSet(false, true)) {
+                synchronized (limiter) {
+                    limiter.waiters.remove(this);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.ops;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Writes checkpoints on a single background thread so the pipeline never waits for disk.
+ * <p>
+ * {@link #publish} only replaces the pending snapshot; the writer saves the latest one at most once per
+ * {@code flushInterval}, so snapshots published in between are coalesced. Whether a write is fsynced follows the
+ * {@link FsyncPolicy}. {@link #flush()} and {@link #close()} save and fsync the latest snapshot on the caller's
+ * thread regardless of policy. A failed write is rethrown to the next caller.
+ */
+public final class AsyncCheckpointer implements AutoCloseable {
+    private final CheckpointStore store;
+    private final long flushIntervalNanos;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalNanos;
+    private final AtomicReference<CheckpointStore.Checkpoint> pending = new AtomicReference<>();
+    private final Object signal = new Object();
+    private final Object writeLock = new Object();
+    private final Thread writer;
+    private final LongAdder published = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder forcedWrites = new LongAdder();
+    private volatile boolean closed;
+    private volatile RuntimeException failure;
+
+    // Guarded by writeLock.
+    private CheckpointStore.Checkpoint lastWritten;
+    private boolean lastWrittenForced;
+    private long lastWriteNanos;
+    private long lastForceNanos;
+    private long maxWriteNanos;
+
+    private AsyncCheckpointer(CheckpointStore store, Duration flushInterval, FsyncPolicy fsyncPolicy, Duration fsyncInterval) {
+        this.store = store;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalNanos = fsyncInterval.toNanos();
+        long now = System.nanoTime();
+        this.lastWriteNanos = now - flushIntervalNanos;
+        this.lastForceNanos = now;
+        this.writer = new Thread(this::runWriter, "checkpoint-writer");
+        this.writer.setDaemon(true);
+    }
+
+    public static AsyncCheckpointer start(
+            CheckpointStore store, Duration flushInterval, FsyncPolicy fsyncPolicy, Duration fsyncInterval) {
+        Objects.requireNonNull(store, "store");
+        Objects.requireNonNull(fsyncPolicy, "fsyncPolicy");
+        if (flushInterval.isNegative() || fsyncInterval.isNegative()) {
+            throw new IllegalArgumentException("flushInterval and fsyncInterval must be >= 0");
+        }
+        AsyncCheckpointer checkpointer = new AsyncCheckpointer(store, flushInterval, fsyncPolicy, fsyncInterval);
+        checkpointer.writer.start();
+        return checkpointer;
+    }
+
+    /** The underlying store, for loading the checkpoint to resume from. */
+    public CheckpointStore store() {
+        return store;
+    }
+
+    /** Makes {@code checkpoint} the one to write next, replacing any not yet written. Never blocks. */
+    public void publish(CheckpointStore.Checkpoint checkpoint) {
+        Objects.requireNonNull(checkpoint, "checkpoint");
+        throwIfFailed();
+        if (closed) {
+            throw new IllegalStateException("Checkpointer is closed");
+        }
+        pending.set(checkpoint);
+        published.increment();
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+    }
+
+    /** Saves and fsyncs the latest published checkpoint before returning. */
+    public void flush() {
+        synchronized (writeLock) {
+            throwIfFailed();
+            CheckpointStore.Checkpoint latest = pending.getAndSet(null);
+            if (latest != null) {
+                write(latest, true);
+            } else if (lastWritten != null && !lastWrittenForced) {
+                write(lastWritten, true);
+            }
+        }
+    }
+
+    /** Stops the writer and flushes. */
+    @Override
+    public void close() {
+        closed = true;
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private void runWriter() {
+        try {
+            while (!closed) {
+                synchronized (signal) {
+                    while (!closed) {
+                        if (pending.get() == null) {
+                            signal.wait();
+                            continue;
+                        }
+                        long waitNanos = lastWriteNanosSnapshot() + flushIntervalNanos - System.nanoTime();
+                        if (waitNanos <= 0) {
+                            break;
+                        }
+                        TimeUnit.NANOSECONDS.timedWait(signal, waitNanos);
+                    }
+                }
+                if (closed) {
+                    return;
+                }
+                synchronized (writeLock) {
+                    CheckpointStore.Checkpoint latest = pending.getAndSet(null);
+                    if (latest != null) {
+                        try {
+                            write(latest, shouldForce());
+                        } catch (RuntimeException e) {
+                            // Set under the lock so a concurrent flush() cannot miss it.
+                            failure = e;
+                            return;
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private long lastWriteNanosSnapshot() {
+        synchronized (writeLock) {
+            return lastWriteNanos;
+        }
+    }
+
+    private boolean shouldForce() {
+        return switch (fsyncPolicy) {
+            case ALWAYS -> true;
+            case NEVER -> false;
+            case INTERVAL -> System.nanoTime() - lastForceNanos >= fsyncIntervalNanos;
+        };
+    }
+
+    private void write(CheckpointStore.Checkpoint checkpoint, boolean force) {
+        long startedAt = System.nanoTime();
+        store.save(checkpoint, force);
+        long now = System.nanoTime();
+        maxWriteNanos = Math.max(maxWriteNanos, now - startedAt);
+        lastWritten = checkpoint;
+        lastWrittenForced = force;
+        lastWriteNanos = now;
+        writes.increment();
+        if (force) {
+            lastForceNanos = now;
+            forcedWrites.increment();
+        }
+    }
+
+    private void throwIfFailed() {
+        RuntimeException e = failure;
+        if (e != null) {
+            throw new IllegalStateException("Checkpoint writer failed", e);
+        }
+    }
+
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("fsyncPolicy", fsyncPolicy.toString());
+        metrics.put("published", published.sum());
+        metrics.put("writes", writes.sum());
+        metrics.put("forcedWrites", forcedWrites.sum());
+        synchronized (writeLock) {
+            metrics.put("maxWriteMicros", TimeUnit.NANOSECONDS.toMicros(maxWriteNanos));
+        }
+        return metrics;
+    }
+
+    public enum FsyncPolicy {
+        /** Fsync every write. */
+        ALWAYS,
+        /** Fsync a write if the last fsync is older than the fsync interval. */
+        INTERVAL,
+        /** Never fsync background writes; only {@link #flush()} and {@link #close()} do. */
+        NEVER
+    }
+}
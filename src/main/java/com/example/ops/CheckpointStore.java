@@ -9,6 +9,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
@@ -35,13 +37,22 @@ public final class CheckpointStore {
             if (bytes.length == 0) {
                 return Optional.empty();
             }
-            return Optional.of(mapper.readValue(bytes, Checkpoint.class));
+            return Optional.of(mapper.readValue(bytes, Checkpoint.class).upgrade());
         } catch (IOException e) {
             throw new IllegalStateException("Unable to read checkpoint: " + checkpointPath, e);
         }
     }
 
     public void save(Checkpoint checkpoint) {
+        save(checkpoint, true);
+    }
+
+    /**
+     * Writes {@code checkpoint} to a temp file and atomically renames it over the checkpoint. With {@code force} the
+     * temp file is fsynced first, so the new checkpoint survives a crash once this returns; without it the file is
+     * still never torn, but may roll back to an earlier checkpoint after a crash.
+     */
+    public void save(Checkpoint checkpoint, boolean force) {
         Objects.requireNonNull(checkpoint, "checkpoint");
         try {
             Path parent = checkpointPath.toAbsolutePath().getParent();
@@ -62,7 +73,9 @@ public final class CheckpointStore {
                 while (buffer.hasRemaining()) {
                     channel.write(buffer);
                 }
-                channel.force(true);
+                if (force) {
+                    channel.force(true);
+                }
             }
 
             try {
@@ -83,19 +96,147 @@ public final class CheckpointStore {
         }
     }
 
+    /**
+     * Resume state, schema version {@value #CURRENT_VERSION}: one {@link Partition} per scanned key range, each with
+     * its own bounds, cursor, counters and status. The top-level counters are the totals across partitions and
+     * {@code lastSuccessfulDocId} mirrors the cursor of a single-range run, so v1 readers still see a usable file.
+     * <p>
+     * v1 files (no {@code version}; a single cursor and counters, optionally with bare partition cursors) are
+     * upgraded on {@link CheckpointStore#load()}. Counters missing from older files (e.g. {@code prefiltered}) load
+     * as 0.
+     */
     public record Checkpoint(
+            int version,
             String lastSuccessfulDocId,
             long scanned,
             long encrypted,
             long written,
-            long quarantined) {
+            long quarantined,
+            long prefiltered,
+            List<Partition> partitions) {
+        public static final int CURRENT_VERSION = 2;
+
         public Checkpoint {
+            if (version > CURRENT_VERSION) {
+                throw new IllegalStateException("Unsupported checkpoint version " + version);
+            }
             if (lastSuccessfulDocId != null && lastSuccessfulDocId.isBlank()) {
                 lastSuccessfulDocId = null;
             }
-            if (scanned < 0 || encrypted < 0 || written < 0 || quarantined < 0) {
+            if (scanned < 0 || encrypted < 0 || written < 0 || quarantined < 0 || prefiltered < 0) {
                 throw new IllegalArgumentException("Counters must be >= 0");
             }
+            partitions = partitions == null ? List.of() : List.copyOf(partitions);
+        }
+
+        /** A single-range checkpoint: one in-progress partition over the whole key space. */
+        public Checkpoint(
+                String lastSuccessfulDocId, long scanned, long encrypted, long written, long quarantined, long prefiltered) {
+            this(CURRENT_VERSION, lastSuccessfulDocId, scanned, encrypted, written, quarantined, prefiltered, List.of(
+                    new Partition(null, null, lastSuccessfulDocId, PartitionStatus.IN_PROGRESS,
+                            scanned, encrypted, written, quarantined, prefiltered)));
+        }
+
+        public Checkpoint(String lastSuccessfulDocId, long scanned, long encrypted, long written, long quarantined) {
+            this(lastSuccessfulDocId, scanned, encrypted, written, quarantined, 0L);
+        }
+
+        /** A v2 checkpoint whose totals are summed from {@code partitions}. */
+        public static Checkpoint of(List<Partition> partitions) {
+            long scanned = 0;
+            long encrypted = 0;
+            long written = 0;
+            long quarantined = 0;
+            long prefiltered = 0;
+            for (Partition p : partitions) {
+                scanned += p.scanned();
+                encrypted += p.encrypted();
+                written += p.written();
+                quarantined += p.quarantined();
+                prefiltered += p.prefiltered();
+            }
+            String cursor = partitions.size() == 1 ? partitions.get(0).lastSuccessfulDocId() : null;
+            return new Checkpoint(
+                    CURRENT_VERSION, cursor, scanned, encrypted, written, quarantined, prefiltered, partitions);
+        }
+
+        /**
+         * Returns this checkpoint in the current schema. A v1 checkpoint without partitions becomes one partition
+         * over the whole key space carrying its cursor and counters; v1 partition cursors keep their bounds, with
+         * the counters kept on the first one so totals are preserved.
+         */
+        public Checkpoint upgrade() {
+            if (version == CURRENT_VERSION) {
+                return this;
+            }
+            if (partitions.isEmpty()) {
+                return new Checkpoint(lastSuccessfulDocId, scanned, encrypted, written, quarantined, prefiltered);
+            }
+            List<Partition> upgraded = new ArrayList<>(partitions.size());
+            for (int i = 0; i < partitions.size(); i++) {
+                Partition p = partitions.get(i);
+                upgraded.add(i == 0
+                        ? new Partition(p.startInclusive(), p.endExclusive(), p.lastSuccessfulDocId(), p.status(),
+                                scanned, encrypted, written, quarantined, prefiltered)
+                        : p);
+            }
+            return of(upgraded);
+        }
+    }
+
+    public enum PartitionStatus {
+        /** Not started yet. */
+        PENDING,
+        /** Started; resume from {@code lastSuccessfulDocId} (or the range start). */
+        IN_PROGRESS,
+        /** Scanned to the end with every document written; skipped on resume. */
+        COMPLETE
+    }
+
+    /**
+     * One scanned key range {@code [startInclusive, endExclusive)} ({@code null} = unbounded), the last document ID
+     * up to which it has been migrated, its status and its share of the counters. {@code quarantinedIds} lists
+     * documents at or before the cursor that failed and are retried on resume; missing in older files, it loads as
+     * empty.
+     */
+    public record Partition(
+            String startInclusive,
+            String endExclusive,
+            String lastSuccessfulDocId,
+            PartitionStatus status,
+            long scanned,
+            long encrypted,
+            long written,
+            long quarantined,
+            long prefiltered,
+            List<String> quarantinedIds) {
+        public Partition {
+            if (lastSuccessfulDocId != null && lastSuccessfulDocId.isBlank()) {
+                lastSuccessfulDocId = null;
+            }
+            status = status == null ? PartitionStatus.IN_PROGRESS : status;
+            if (scanned < 0 || encrypted < 0 || written < 0 || quarantined < 0 || prefiltered < 0) {
+                throw new IllegalArgumentException("Counters must be >= 0");
+            }
+            quarantinedIds = quarantinedIds == null ? List.of() : List.copyOf(quarantinedIds);
+        }
+
+        public Partition(
+                String startInclusive,
+                String endExclusive,
+                String lastSuccessfulDocId,
+                PartitionStatus status,
+                long scanned,
+                long encrypted,
+                long written,
+                long quarantined,
+                long prefiltered) {
+            this(startInclusive, endExclusive, lastSuccessfulDocId, status,
+                    scanned, encrypted, written, quarantined, prefiltered, List.of());
+        }
+
+        public Partition(String startInclusive, String endExclusive, String lastSuccessfulDocId) {
+            this(startInclusive, endExclusive, lastSuccessfulDocId, PartitionStatus.IN_PROGRESS, 0, 0, 0, 0, 0);
         }
     }
 }
@@ -0,0 +1,345 @@
+package com.example.ops;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+/**
+ * Count-based circuit breaker that pauses callers instead of failing them.
+ * <p>
+ * While {@link State#CLOSED} it keeps the outcomes of the last {@code window} calls; once at least
+ * {@code minCalls} are recorded and the failure rate or the slow-call rate reaches its threshold, it opens. While
+ * {@link State#OPEN}, {@link #guard(Mono)} holds calls (without holding a thread) rather than rejecting them, so
+ * a bounded pipeline stops pulling new work. After {@code openDuration} it goes {@link State#HALF_OPEN} and lets
+ * {@code probes} calls through: if they all succeed it closes and releases every held call, any failure re-opens
+ * it. Each half-open period has its own generation, and probes still running from an earlier period are ignored when
+ * they finish. Only errors matching the failure predicate count as failures; others count as successes.
+ */
+public final class CircuitBreaker {
+    private static final int MAX_TRANSITIONS = 100;
+    /** Admission of a normal call; probes are admitted with their half-open generation (>= 0). */
+    private static final long NORMAL_CALL = -1L;
+
+    private final String name;
+    private final boolean enabled;
+    private final Settings settings;
+    private final Predicate<Throwable> isFailure;
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+    private final boolean[] failures;
+    private final boolean[] slowCalls;
+    private final Deque<Transition> transitions = new ArrayDeque<>();
+    private volatile Consumer<Transition> listener = ignored -> {
+    };
+
+    // Guarded by this.
+    private State state = State.CLOSED;
+    private int next;
+    private int recorded;
+    private int failureCount;
+    private int slowCount;
+    private int probesInFlight;
+    private int probeSuccesses;
+    private long halfOpenGeneration = -1L;
+    private long opened;
+    private long heldCalls;
+
+    private CircuitBreaker(String name, boolean enabled, Settings settings, Predicate<Throwable> isFailure) {
+        this.name = name;
+        this.enabled = enabled;
+        this.settings = settings;
+        this.isFailure = isFailure;
+        this.failures = new boolean[settings.window()];
+        this.slowCalls = new boolean[settings.window()];
+    }
+
+    public static CircuitBreaker create(String name, Settings settings, Predicate<Throwable> isFailure) {
+        return new CircuitBreaker(
+                Objects.requireNonNull(name, "name"),
+                true,
+                Objects.requireNonNull(settings, "settings"),
+                Objects.requireNonNull(isFailure, "isFailure"));
+    }
+
+    /** A breaker that never opens; {@link #guard(Mono)} returns the call unchanged. */
+    public static CircuitBreaker disabled(String name) {
+        return new CircuitBreaker(
+                Objects.requireNonNull(name, "name"),
+                false,
+                new Settings(1, 1, 100.0, Duration.ofDays(1), 100.0, Duration.ZERO, 1),
+                ignored -> false);
+    }
+
+    /** Called on every state change, outside the breaker's lock. */
+    public void onTransition(Consumer<Transition> listener) {
+        this.listener = Objects.requireNonNull(listener, "listener");
+    }
+
+    /** Runs {@code call} once the breaker admits it, recording its outcome and latency. */
+    public <T> Mono<T> guard(Mono<T> call) {
+        if (!enabled) {
+            return call;
+        }
+        return permission().flatMap(admission -> Mono.defer(() -> {
+            long startedAt = System.nanoTime();
+            AtomicBoolean done = new AtomicBoolean();
+            return call
+                    .doOnSuccess(ignored -> {
+                        if (done.compareAndSet(false, true)) {
+                            onResult(admission, false, System.nanoTime() - startedAt);
+                        }
+                    })
+                    .doOnError(e -> {
+                        if (done.compareAndSet(false, true)) {
+                            onResult(admission, isFailure.test(e), System.nanoTime() - startedAt);
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        if (done.compareAndSet(false, true)) {
+                            onCancel(admission);
+                        }
+                    });
+        }));
+    }
+
+    /** Emits once admitted: the half-open generation for a probe, {@link #NORMAL_CALL} for a normal call. */
+    private Mono<Long> permission() {
+        return Mono.create(sink -> {
+            Waiter waiter = new Waiter(sink);
+            Long probe;
+            synchronized (this) {
+                probe = waiters.isEmpty() ? admit() : null;
+                if (probe == null) {
+                    heldCalls++;
+                    waiters.addLast(waiter);
+                }
+            }
+            if (probe != null) {
+                sink.success(probe);
+                return;
+            }
+            sink.onCancel(() -> {
+                if (waiter.done.compareAndSet(false, true)) {
+                    synchronized (this) {
+                        waiters.remove(waiter);
+                    }
+                }
+            });
+        });
+    }
+
+    /** {@link #NORMAL_CALL} to admit a normal call, the generation for a probe, {@code null} to hold the caller. */
+    private Long admit() {
+        if (state == State.CLOSED) {
+            return NORMAL_CALL;
+        }
+        if (state == State.HALF_OPEN && probesInFlight + probeSuccesses < settings.probes()) {
+            probesInFlight++;
+            return halfOpenGeneration;
+        }
+        return null;
+    }
+
+    /** Whether {@code admission} is a probe of the current half-open period. */
+    private boolean isCurrentProbe(long admission) {
+        return admission != NORMAL_CALL && state == State.HALF_OPEN && admission == halfOpenGeneration;
+    }
+
+    private void onResult(long admission, boolean failed, long latencyNanos) {
+        boolean slow = latencyNanos >= settings.slowCallThreshold().toNanos();
+        Transition transition = null;
+        List<Admission> ready = List.of();
+        synchronized (this) {
+            if (admission == NORMAL_CALL && state == State.CLOSED) {
+                record(failed, slow);
+                if (recorded >= settings.minCalls()
+                        && (failureCount * 100.0 / recorded >= settings.failureRatePercent()
+                                || slowCount * 100.0 / recorded >= settings.slowCallRatePercent())) {
+                    transition = open();
+                }
+            } else if (isCurrentProbe(admission)) {
+                probesInFlight--;
+                if (failed || slow) {
+                    transition = open();
+                } else if (++probeSuccesses >= settings.probes()) {
+                    transition = moveTo(State.CLOSED);
+                    resetWindow();
+                    ready = new ArrayList<>(waiters.size());
+                    for (Waiter waiter : waiters) {
+                        ready.add(new Admission(waiter, NORMAL_CALL));
+                    }
+                    waiters.clear();
+                }
+            }
+        }
+        publish(transition, ready);
+    }
+
+    private void onCancel(long admission) {
+        List<Admission> ready = List.of();
+        synchronized (this) {
+            if (isCurrentProbe(admission)) {
+                probesInFlight--;
+                ready = admitProbes();
+            }
+        }
+        publish(null, ready);
+    }
+
+    private void record(boolean failed, boolean slow) {
+        if (recorded == failures.length) {
+            failureCount -= failures[next] ? 1 : 0;
+            slowCount -= slowCalls[next] ? 1 : 0;
+        } else {
+            recorded++;
+        }
+        failures[next] = failed;
+        slowCalls[next] = slow;
+        failureCount += failed ? 1 : 0;
+        slowCount += slow ? 1 : 0;
+        next = (next + 1) % failures.length;
+    }
+
+    private void resetWindow() {
+        next = 0;
+        recorded = 0;
+        failureCount = 0;
+        slowCount = 0;
+    }
+
+    private Transition open() {
+        opened++;
+        probesInFlight = 0;
+        probeSuccesses = 0;
+        Transition transition = moveTo(State.OPEN);
+        Mono.delay(settings.openDuration()).subscribe(ignored -> halfOpen());
+        return transition;
+    }
+
+    private void halfOpen() {
+        Transition transition;
+        List<Admission> ready;
+        synchronized (this) {
+            if (state != State.OPEN) {
+                return;
+            }
+            transition = moveTo(State.HALF_OPEN);
+            halfOpenGeneration++;
+            ready = admitProbes();
+        }
+        publish(transition, ready);
+    }
+
+    private List<Admission> admitProbes() {
+        List<Admission> ready = new ArrayList<>();
+        Long probe;
+        while (!waiters.isEmpty() && (probe = admit()) != null) {
+            ready.add(new Admission(waiters.pollFirst(), probe));
+        }
+        return ready;
+    }
+
+    private Transition moveTo(State to) {
+        Transition transition = new Transition(name, state, to, Instant.now());
+        state = to;
+        transitions.addLast(transition);
+        if (transitions.size() > MAX_TRANSITIONS) {
+            transitions.removeFirst();
+        }
+        return transition;
+    }
+
+    private void publish(Transition transition, List<Admission> ready) {
+        if (transition != null) {
+            listener.accept(transition);
+        }
+        for (Admission admission : ready) {
+            if (admission.waiter().done.compareAndSet(false, true)) {
+                admission.waiter().sink.success(admission.probe());
+            } else if (admission.probe() != NORMAL_CALL) {
+                // Cancelled while being admitted: hand the probe slot on.
+                onCancel(admission.probe());
+            }
+        }
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    public synchronized Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("state", state.toString());
+        metrics.put("opened", opened);
+        metrics.put("heldCalls", heldCalls);
+        List<Map<String, Object>> history = new ArrayList<>(transitions.size());
+        for (Transition t : transitions) {
+            history.add(Map.of("from", t.from().toString(), "to", t.to().toString(), "at", t.at().toString()));
+        }
+        metrics.put("transitions", history);
+        return metrics;
+    }
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    public record Transition(String breaker, State from, State to, Instant at) {
+    }
+
+    private record Admission(Waiter waiter, long probe) {
+    }
+
+    private static final class Waiter {
+        private final MonoSink<Long> sink;
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        Waiter(MonoSink<Long> sink) {
+            this.sink = sink;
+        }
+    }
+
+    /**
+     * Thresholds are percentages of the calls in the window; {@code slowCallThreshold} is the latency from which a
+     * call counts as slow.
+     */
+    public record Settings(
+            int window,
+            int minCalls,
+            double failureRatePercent,
+            Duration slowCallThreshold,
+            double slowCallRatePercent,
+            Duration openDuration,
+            int probes) {
+        public Settings {
+            if (window <= 0 || minCalls <= 0 || minCalls > window) {
+                throw new IllegalArgumentException("require 0 < minCalls <= window");
+            }
+            if (!(failureRatePercent > 0 && failureRatePercent <= 100)
+                    || !(slowCallRatePercent > 0 && slowCallRatePercent <= 100)) {
+                throw new IllegalArgumentException("rate thresholds must be within (0, 100]");
+            }
+            Objects.requireNonNull(slowCallThreshold, "slowCallThreshold");
+            Objects.requireNonNull(openDuration, "openDuration");
+            if (slowCallThreshold.isNegative() || slowCallThreshold.isZero() || openDuration.isNegative()) {
+                throw new IllegalArgumentException("slowCallThreshold must be > 0 and openDuration >= 0");
+            }
+            if (probes <= 0) {
+                throw new IllegalArgumentException("probes must be > 0");
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.ops;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Fixed-size pool for CPU-bound stages (JSON parsing, encryption), kept off the Couchbase SDK I/O threads.
+ * <p>
+ * Tasks queue in a bounded {@link ArrayBlockingQueue}; submissions beyond its capacity are rejected, so the
+ * caller must bound its own concurrency to at most {@code threads + queueCapacity}. Queue depth and the time tasks
+ * wait before starting are tracked for the audit file.
+ */
+public final class CpuPool implements AutoCloseable {
+    private final ThreadPoolExecutor executor;
+    private final Scheduler scheduler;
+    private final int threads;
+    private final int queueCapacity;
+    private final LongAdder tasks = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+    private CpuPool(String name, int threads, int queueCapacity) {
+        this.threads = threads;
+        this.queueCapacity = queueCapacity;
+        this.executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                daemonThreads(name)) {
+            @Override
+            public void execute(Runnable command) {
+                super.execute(command);
+                // Sampled once the task is queued, so the peak includes it.
+                recordQueueDepth();
+            }
+        };
+        this.scheduler = Schedulers.fromExecutorService(executor, name);
+    }
+
+    public static CpuPool create(String name, int threads, int queueCapacity) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be > 0");
+        }
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("queueCapacity must be > 0");
+        }
+        return new CpuPool(name, threads, queueCapacity);
+    }
+
+    /** Runs {@code task} on the pool when subscribed; the result is delivered on the pool thread. */
+    public <T> Mono<T> submit(Callable<T> task) {
+        return Mono.defer(() -> {
+            long enqueuedAt = System.nanoTime();
+            return Mono.fromCallable(() -> {
+                recordWait(System.nanoTime() - enqueuedAt);
+                return task.call();
+            }).subscribeOn(scheduler);
+        });
+    }
+
+    public int threads() {
+        return threads;
+    }
+
+    public int queueCapacity() {
+        return queueCapacity;
+    }
+
+    public int queueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public Map<String, Object> metrics() {
+        long count = tasks.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("threads", threads);
+        metrics.put("queueCapacity", queueCapacity);
+        metrics.put("tasks", count);
+        metrics.put("maxQueueDepth", maxQueueDepth.get());
+        metrics.put("avgWaitMicros", count == 0 ? 0L : TimeUnit.NANOSECONDS.toMicros(waitNanos.sum() / count));
+        metrics.put("maxWaitMicros", TimeUnit.NANOSECONDS.toMicros(maxWaitNanos.get()));
+        return metrics;
+    }
+
+    @Override
+    public void close() {
+        scheduler.dispose();
+    }
+
+    private void recordWait(long nanos) {
+        tasks.increment();
+        waitNanos.add(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private void recordQueueDepth() {
+        maxQueueDepth.accumulateAndGet(executor.getQueue().size(), Math::max);
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.ops;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * JVM shutdown hook (SIGTERM, SIGINT) that lets a running job drain instead of dying mid-batch.
+ * <p>
+ * When the JVM starts shutting down before {@link #finished()} was called, the hook runs {@code requestStop} and
+ * waits up to {@code drainTimeout} for the main thread to call {@link #finished()}. If it does not, the hook runs
+ * {@code onTimeout} (which should save whatever state it can) before letting the JVM halt.
+ */
+public final class GracefulShutdown {
+    private final Duration drainTimeout;
+    private final Runnable requestStop;
+    private final Runnable onTimeout;
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private final AtomicBoolean requested = new AtomicBoolean();
+
+    private GracefulShutdown(Duration drainTimeout, Runnable requestStop, Runnable onTimeout) {
+        this.drainTimeout = drainTimeout;
+        this.requestStop = requestStop;
+        this.onTimeout = onTimeout;
+    }
+
+    public static GracefulShutdown install(Duration drainTimeout, Runnable requestStop, Runnable onTimeout) {
+        GracefulShutdown shutdown = create(drainTimeout, requestStop, onTimeout);
+        Runtime.getRuntime().addShutdownHook(new Thread(shutdown::onShutdown, "graceful-shutdown"));
+        return shutdown;
+    }
+
+    static GracefulShutdown create(Duration drainTimeout, Runnable requestStop, Runnable onTimeout) {
+        Objects.requireNonNull(drainTimeout, "drainTimeout");
+        if (drainTimeout.isNegative()) {
+            throw new IllegalArgumentException("drainTimeout must be >= 0");
+        }
+        return new GracefulShutdown(
+                drainTimeout,
+                Objects.requireNonNull(requestStop, "requestStop"),
+                Objects.requireNonNull(onTimeout, "onTimeout"));
+    }
+
+    /** Whether shutdown began before the job finished, i.e. the run is being interrupted. */
+    public boolean requested() {
+        return requested.get();
+    }
+
+    /** Called by the main thread once the job's final state is saved; the hook then returns at once. */
+    public void finished() {
+        finished.countDown();
+    }
+
+    /** The hook body: stop, wait for the drain, fall back to {@code onTimeout}. */
+    void onShutdown() {
+        if (finished.getCount() == 0 || !requested.compareAndSet(false, true)) {
+            return;
+        }
+        requestStop.run();
+        try {
+            if (finished.await(drainTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        onTimeout.run();
+    }
+}
@@ -1,12 +1,31 @@
 package com.example.ops;
 
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
-public final class KillSwitch {
+/**
+ * Stops the run when {@code file} exists.
+ * <p>
+ * Until {@link #start} is called, {@link #engaged()} checks the file system on every call. Once started, a
+ * background thread keeps the answer in a volatile flag, refreshed on {@link WatchService} events for the file's
+ * directory and at least every {@code pollInterval} (watch events are not delivered on every file system, e.g.
+ * NFS), so {@link #engaged()} is cheap enough to call per document.
+ */
+public final class KillSwitch implements AutoCloseable {
     private final Path file;
     private final boolean enabled;
+    private volatile boolean engaged;
+    private volatile Thread watcher;
+    private volatile WatchService watchService;
 
     public KillSwitch(Path file) {
         this(file, true);
@@ -17,8 +36,32 @@ public final class KillSwitch {
         this.enabled = enabled;
     }
 
+    /** Starts watching the file; a disabled kill switch has nothing to watch. */
+    public synchronized KillSwitch start(Duration pollInterval) {
+        Objects.requireNonNull(pollInterval, "pollInterval");
+        if (pollInterval.isNegative() || pollInterval.isZero()) {
+            throw new IllegalArgumentException("pollInterval must be > 0");
+        }
+        if (watcher != null) {
+            throw new IllegalStateException("Kill switch already started");
+        }
+        if (!enabled) {
+            return this;
+        }
+        engaged = Files.exists(file);
+        watchService = register();
+        Thread thread = new Thread(() -> watch(pollInterval.toNanos()), "kill-switch-watcher");
+        thread.setDaemon(true);
+        watcher = thread;
+        thread.start();
+        return this;
+    }
+
     public boolean engaged() {
-        return enabled && Files.exists(file);
+        if (!enabled) {
+            return false;
+        }
+        return watcher != null ? engaged : Files.exists(file);
     }
 
     public void throwIfEngaged() {
@@ -27,6 +70,67 @@ public final class KillSwitch {
         }
     }
 
+    @Override
+    public synchronized void close() {
+        Thread thread = watcher;
+        if (thread == null) {
+            return;
+        }
+        thread.interrupt();
+        WatchService service = watchService;
+        if (service != null) {
+            try {
+                service.close();
+            } catch (IOException ignored) {
+                // Only polling stops working, and the watcher is stopping anyway.
+            }
+        }
+    }
+
+    /** Watches the file's directory, or {@code null} to rely on polling alone. */
+    private WatchService register() {
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir == null || !Files.isDirectory(dir)) {
+            return null;
+        }
+        WatchService service = null;
+        try {
+            service = FileSystems.getDefault().newWatchService();
+            dir.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE);
+            return service;
+        } catch (IOException | UnsupportedOperationException e) {
+            if (service != null) {
+                try {
+                    service.close();
+                } catch (IOException ignored) {
+                    // Falling back to polling.
+                }
+            }
+            return null;
+        }
+    }
+
+    private void watch(long pollNanos) {
+        WatchService service = watchService;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                if (service != null) {
+                    WatchKey key = service.poll(pollNanos, TimeUnit.NANOSECONDS);
+                    if (key != null) {
+                        key.pollEvents();
+                        key.reset();
+                    }
+                } else {
+                    TimeUnit.NANOSECONDS.sleep(pollNanos);
+                }
+                // Events only say "look again"; the file system has the final word.
+                engaged = Files.exists(file);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     public static final class EngagedException extends RuntimeException {
         public EngagedException(Path file) {
             super("Kill switch engaged (file exists): " + file);
@@ -0,0 +1,57 @@
+package com.example.ops;
+
+import java.util.Arrays;
+
+/**
+ * Sliding-window latency quantile estimate.
+ * <p>
+ * Keeps the last {@code window} samples and recomputes the configured quantile every {@code window / 16} samples, so
+ * readers get a cached value without sorting on the hot path. Reports {@code -1} until the window has filled once.
+ */
+public final class LatencyTracker {
+    private final double quantile;
+    private final long[] samples;
+    private final int recomputeEvery;
+
+    // Guarded by this.
+    private int next;
+    private long count;
+
+    private volatile long estimateNanos = -1L;
+
+    private LatencyTracker(double quantile, int window) {
+        this.quantile = quantile;
+        this.samples = new long[window];
+        this.recomputeEvery = Math.max(1, window / 16);
+    }
+
+    public static LatencyTracker create(double quantile, int window) {
+        if (!(quantile > 0.0 && quantile < 1.0)) {
+            throw new IllegalArgumentException("quantile must be within (0, 1)");
+        }
+        if (window <= 0) {
+            throw new IllegalArgumentException("window must be > 0");
+        }
+        return new LatencyTracker(quantile, window);
+    }
+
+    public synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        count++;
+        if (count >= samples.length && (count - samples.length) % recomputeEvery == 0) {
+            long[] sorted = samples.clone();
+            Arrays.sort(sorted);
+            estimateNanos = sorted[(int) Math.min(sorted.length - 1, Math.floor(quantile * sorted.length))];
+        }
+    }
+
+    /** The quantile over the current window, or {@code -1} while warming up. */
+    public long estimateNanos() {
+        return estimateNanos;
+    }
+
+    public double quantile() {
+        return quantile;
+    }
+}
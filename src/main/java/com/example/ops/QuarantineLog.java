@@ -0,0 +1,430 @@
+package com.example.ops;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only quarantine log: records go into a bounded buffer and a single background thread appends them to
+ * rolling segment files, fsyncing once per batch.
+ * <p>
+ * Segments are named {@code quarantine-<index>.log}; each run starts a new one, and a segment is rolled once it
+ * would exceed {@code segmentBytes} (a larger record gets a segment of its own). A record is a 4-byte body length,
+ * the CRC32C of the body, then the body: the epoch-millisecond timestamp, the document ID and stage (modified UTF-8,
+ * as written by {@link DataOutputStream}), and the exception metadata of {@link QuarantineWriter}. {@link #record}
+ * blocks only while the buffer is full; {@link #flush()} waits until every record queued so far is fsynced.
+ * {@link #read(Path)} iterates the records of all segments in order.
+ */
+public final class QuarantineLog implements QuarantineSink {
+    static final int MAX_RECORD_BYTES = 1024 * 1024;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("quarantine-(\\d{20})\\.log");
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_BATCH = 1024;
+    private static final long POLL_MILLIS = 100;
+
+    private final Path dir;
+    private final long segmentBytes;
+    private final ArrayBlockingQueue<Pending> buffer;
+    private final Thread writer;
+    private final AtomicLong recorded = new AtomicLong();
+    private final LongAdder bufferFullWaits = new LongAdder();
+    private final Object durableLock = new Object();
+    private volatile boolean closed;
+    private volatile RuntimeException failure;
+
+    // Guarded by durableLock: records appended and fsynced so far.
+    private long durable;
+
+    // Owned by the writer thread, then by close() once it has stopped.
+    private long nextSegmentIndex;
+    private FileChannel segment;
+    private long segmentSize;
+    private long appended;
+    private long batches;
+    private long segmentsOpened;
+    private int maxBatch;
+
+    private QuarantineLog(Path dir, long segmentBytes, int bufferCapacity, long nextSegmentIndex) {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        this.nextSegmentIndex = nextSegmentIndex;
+        this.writer = new Thread(this::runWriter, "quarantine-writer");
+        this.writer.setDaemon(true);
+    }
+
+    public static QuarantineLog open(Path dir, long segmentBytes, int bufferCapacity) {
+        Objects.requireNonNull(dir, "dir");
+        if (segmentBytes <= 0) {
+            throw new IllegalArgumentException("segmentBytes must be > 0");
+        }
+        if (bufferCapacity <= 0) {
+            throw new IllegalArgumentException("bufferCapacity must be > 0");
+        }
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to create quarantine log directory " + dir, e);
+        }
+        List<Path> existing = segments(dir);
+        long next = existing.isEmpty() ? 0 : segmentIndex(existing.get(existing.size() - 1)) + 1;
+        QuarantineLog log = new QuarantineLog(dir, segmentBytes, bufferCapacity, next);
+        log.writer.start();
+        return log;
+    }
+
+    /** Queues a record for the writer; waits only while the buffer is full. */
+    @Override
+    public void record(String docId, String stage, Throwable exception) {
+        Pending pending = new Pending(
+                Instant.now().toEpochMilli(),
+                QuarantineWriter.requireNotBlank(docId, "docId"),
+                QuarantineWriter.requireNotBlank(stage, "stage"),
+                Objects.requireNonNull(exception, "exception"));
+        throwIfFailed();
+        if (closed) {
+            throw new IllegalStateException("Quarantine log is closed");
+        }
+        if (!buffer.offer(pending)) {
+            bufferFullWaits.increment();
+            try {
+                while (!buffer.offer(pending, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    throwIfFailed();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while queueing quarantine record", e);
+            }
+        }
+        recorded.incrementAndGet();
+    }
+
+    /** Waits until every record queued before this call is appended and fsynced. */
+    @Override
+    public void flush() {
+        long target = recorded.get();
+        synchronized (durableLock) {
+            while (durable < target) {
+                throwIfFailed();
+                if (!writer.isAlive()) {
+                    break;
+                }
+                try {
+                    durableLock.wait(POLL_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while flushing quarantine log", e);
+                }
+            }
+        }
+        throwIfFailed();
+    }
+
+    /** Stops the writer once it has appended and fsynced every queued record. */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (failure == null && !writer.isAlive()) {
+                // Records queued by callers that raced with close().
+                List<Pending> rest = new ArrayList<>();
+                buffer.drainTo(rest);
+                if (!rest.isEmpty()) {
+                    append(rest);
+                }
+            }
+            closeSegment();
+        } catch (IOException | RuntimeException e) {
+            failure = failure != null ? failure : asRuntime(e);
+        }
+        throwIfFailed();
+    }
+
+    private void runWriter() {
+        List<Pending> batch = new ArrayList<>(MAX_BATCH);
+        try {
+            while (true) {
+                Pending first = buffer.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closed) {
+                        return;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, MAX_BATCH - 1);
+                append(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            failure = asRuntime(e);
+        }
+    }
+
+    private void append(List<Pending> batch) throws IOException {
+        for (Pending pending : batch) {
+            ByteBuffer record = encode(pending);
+            if (segment == null || (segmentSize > 0 && segmentSize + record.remaining() > segmentBytes)) {
+                rollSegment();
+            }
+            while (record.hasRemaining()) {
+                segmentSize += segment.write(record);
+            }
+            appended++;
+        }
+        segment.force(false);
+        batches++;
+        maxBatch = Math.max(maxBatch, batch.size());
+        synchronized (durableLock) {
+            durable += batch.size();
+            durableLock.notifyAll();
+        }
+    }
+
+    private void rollSegment() throws IOException {
+        closeSegment();
+        Path path = dir.resolve(segmentName(nextSegmentIndex++));
+        segment = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        segmentSize = 0;
+        segmentsOpened++;
+    }
+
+    private void closeSegment() throws IOException {
+        if (segment != null) {
+            segment.force(true);
+            segment.close();
+            segment = null;
+        }
+    }
+
+    private static ByteBuffer encode(Pending pending) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        bytes.write(new byte[HEADER_BYTES]);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(pending.epochMillis());
+        out.writeUTF(pending.docId());
+        out.writeUTF(pending.stage());
+        out.write(QuarantineWriter.describe(pending.exception(), QuarantineWriter.DEFAULT_MAX_EXCEPTION_CHARS)
+                .getBytes(StandardCharsets.UTF_8));
+        out.flush();
+
+        ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+        int bodyLength = record.capacity() - HEADER_BYTES;
+        if (bodyLength > MAX_RECORD_BYTES) {
+            throw new IllegalStateException("Quarantine record exceeds " + MAX_RECORD_BYTES + " bytes");
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(record.array(), HEADER_BYTES, bodyLength);
+        record.putInt(0, bodyLength);
+        record.putInt(4, (int) crc.getValue());
+        return record;
+    }
+
+    private void throwIfFailed() {
+        RuntimeException e = failure;
+        if (e != null) {
+            throw new IllegalStateException("Quarantine log writer failed", e);
+        }
+    }
+
+    private static RuntimeException asRuntime(Exception e) {
+        return e instanceof IOException io ? new UncheckedIOException(io) : (RuntimeException) e;
+    }
+
+    /** Counters are exact once the log is closed. */
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("mode", "log");
+        metrics.put("recorded", recorded.get());
+        metrics.put("bufferFullWaits", bufferFullWaits.sum());
+        metrics.put("appended", appended);
+        metrics.put("batches", batches);
+        metrics.put("maxBatch", maxBatch);
+        metrics.put("segments", segmentsOpened);
+        return metrics;
+    }
+
+    /** The segment files in {@code dir}, oldest first. */
+    public static List<Path> segments(Path dir) {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files
+                    .filter(path -> SEGMENT_NAME.matcher(path.getFileName().toString()).matches())
+                    .sorted(Comparator.comparingLong(QuarantineLog::segmentIndex))
+                    .toList();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to list quarantine log segments in " + dir, e);
+        }
+    }
+
+    /** Reads every record in {@code dir}, segment by segment in write order. */
+    public static Reader read(Path dir) {
+        return new Reader(segments(Objects.requireNonNull(dir, "dir")));
+    }
+
+    static String segmentName(long index) {
+        return String.format("quarantine-%020d.log", index);
+    }
+
+    private static long segmentIndex(Path segment) {
+        Matcher m = SEGMENT_NAME.matcher(segment.getFileName().toString());
+        if (!m.matches()) {
+            throw new IllegalArgumentException("Not a quarantine log segment: " + segment);
+        }
+        return Long.parseLong(m.group(1));
+    }
+
+    /** One quarantined document; {@code details} is the exception metadata, one {@code key=value} per line. */
+    public record Entry(Instant at, String docId, String stage, String details) {
+    }
+
+    private record Pending(long epochMillis, String docId, String stage, Throwable exception) {
+    }
+
+    /**
+     * Iterates the records of a list of segments. A record that is cut short or fails its checksum ends its segment
+     * (the writer may have crashed mid-append) and is counted in {@link #skippedSegmentTails()}; reading carries on
+     * with the next segment.
+     */
+    public static final class Reader implements Iterator<Entry>, Closeable {
+        private final Iterator<Path> segments;
+        private DataInputStream in;
+        private Entry next;
+        private long skippedSegmentTails;
+
+        private Reader(List<Path> segments) {
+            this.segments = segments.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                next = advance();
+            }
+            return next != null;
+        }
+
+        @Override
+        public Entry next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Entry entry = next;
+            next = null;
+            return entry;
+        }
+
+        public long skippedSegmentTails() {
+            return skippedSegmentTails;
+        }
+
+        private Entry advance() {
+            try {
+                while (true) {
+                    if (in == null) {
+                        if (!segments.hasNext()) {
+                            return null;
+                        }
+                        in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segments.next())));
+                    }
+                    Entry entry = readRecord(in);
+                    if (entry != null) {
+                        return entry;
+                    }
+                    in.close();
+                    in = null;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to read quarantine log", e);
+            }
+        }
+
+        /** The next record, or {@code null} at the end of the segment or at a damaged record. */
+        private Entry readRecord(DataInputStream in) throws IOException {
+            int length;
+            try {
+                length = in.readInt();
+            } catch (EOFException e) {
+                return null;
+            }
+            int expectedCrc;
+            byte[] body;
+            try {
+                expectedCrc = in.readInt();
+                if (length < 0 || length > MAX_RECORD_BYTES) {
+                    skippedSegmentTails++;
+                    return null;
+                }
+                body = in.readNBytes(length);
+            } catch (EOFException e) {
+                skippedSegmentTails++;
+                return null;
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(body);
+            if (body.length < length || (int) crc.getValue() != expectedCrc) {
+                skippedSegmentTails++;
+                return null;
+            }
+            return decode(body);
+        }
+
+        private static Entry decode(byte[] body) throws IOException {
+            InputStream bytes = new ByteArrayInputStream(body);
+            DataInputStream data = new DataInputStream(bytes);
+            Instant at = Instant.ofEpochMilli(data.readLong());
+            String docId = data.readUTF();
+            String stage = data.readUTF();
+            String details = new String(data.readAllBytes(), StandardCharsets.UTF_8);
+            return new Entry(at, docId, stage, details);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (in != null) {
+                in.close();
+                in = null;
+            }
+        }
+    }
+}
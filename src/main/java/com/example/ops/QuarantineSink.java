@@ -0,0 +1,20 @@
+package com.example.ops;
+
+import java.util.Map;
+
+/** Where per-document failures are recorded: document ID, stage and exception metadata, never document content. */
+public interface QuarantineSink extends AutoCloseable {
+    /** Records one failed document. */
+    void record(String docId, String stage, Throwable exception);
+
+    Map<String, Object> metrics();
+
+    /** Makes everything recorded so far durable. */
+    default void flush() {
+    }
+
+    /** Flushes and releases the sink; closing it again has no effect. */
+    @Override
+    default void close() {
+    }
+}
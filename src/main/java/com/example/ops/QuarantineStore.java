@@ -0,0 +1,228 @@
+package com.example.ops;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Read side of the quarantine directory, for replays.
+ * <p>
+ * {@link #pendingIds()} collects the document IDs of both the per-document {@code .txt} files of
+ * {@link QuarantineWriter} and the segments of {@link QuarantineLog}, without duplicates, and leaves out IDs whose
+ * latest quarantine record is older than their resolution in {@code resolved-ids.txt}, so an ID quarantined again
+ * after a replay wrote it is pending again. {@link #markResolved} appends {@code epochMillis<TAB>docId} lines to
+ * that file and {@link #close()} fsyncs it. A resolution is stamped with the time {@link #pendingIds()} was read, and
+ * a record in the same millisecond counts as newer, so ties err towards replaying. Bare-ID lines from older versions
+ * carry no time and are replayed once more. IDs containing a line break are never marked resolved.
+ */
+public final class QuarantineStore implements AutoCloseable {
+    static final String RESOLVED_FILE = "resolved-ids.txt";
+    private static final String DOC_ID_PREFIX = "docId=";
+
+    private final Path dir;
+    private final LongSupplier clock;
+    /** Latest resolution time per ID, epoch millis; {@link Long#MIN_VALUE} for bare-ID lines. */
+    private final Map<String, Long> resolvedAt;
+    private final long resolvedBefore;
+    private long readAt;
+    private long quarantinedIds;
+    private long newlyResolved;
+    private long skippedSegmentTails;
+    private FileChannel resolvedChannel;
+    private Writer resolvedOut;
+
+    private QuarantineStore(Path dir, LongSupplier clock, Map<String, Long> resolvedAt) {
+        this.dir = dir;
+        this.clock = clock;
+        this.resolvedAt = resolvedAt;
+        this.resolvedBefore = resolvedAt.size();
+        this.readAt = clock.getAsLong();
+    }
+
+    public static QuarantineStore open(Path dir) {
+        return open(dir, System::currentTimeMillis);
+    }
+
+    static QuarantineStore open(Path dir, LongSupplier clock) {
+        Objects.requireNonNull(dir, "dir");
+        Objects.requireNonNull(clock, "clock");
+        Path resolvedFile = dir.resolve(RESOLVED_FILE);
+        Map<String, Long> resolvedAt = new HashMap<>();
+        if (Files.exists(resolvedFile)) {
+            try (Stream<String> lines = Files.lines(resolvedFile, StandardCharsets.UTF_8)) {
+                lines.filter(line -> !line.isEmpty()).forEach(line -> {
+                    int tab = line.indexOf('\t');
+                    long at = tab > 0 ? parseMillis(line.substring(0, tab)) : Long.MIN_VALUE;
+                    String docId = at == Long.MIN_VALUE ? line : line.substring(tab + 1);
+                    resolvedAt.merge(docId, at, Math::max);
+                });
+            } catch (IOException | UncheckedIOException e) {
+                throw new IllegalStateException("Unable to read " + resolvedFile, e);
+            }
+        }
+        return new QuarantineStore(dir, clock, resolvedAt);
+    }
+
+    /**
+     * Quarantined IDs not resolved since their latest quarantine record, in the order they were first found: text
+     * files by name, then segments.
+     */
+    public synchronized List<String> pendingIds() {
+        readAt = clock.getAsLong();
+        Map<String, Long> latest = new LinkedHashMap<>();
+        for (Path file : textFiles()) {
+            String docId = readDocId(file);
+            if (docId != null) {
+                latest.merge(docId, recordedAt(file), Math::max);
+            }
+        }
+        try (QuarantineLog.Reader reader = QuarantineLog.read(dir)) {
+            reader.forEachRemaining(entry -> latest.merge(entry.docId(), entry.at().toEpochMilli(), Math::max));
+            skippedSegmentTails = reader.skippedSegmentTails();
+        } catch (IOException | UncheckedIOException e) {
+            throw new IllegalStateException("Unable to read quarantine log in " + dir, e);
+        }
+        quarantinedIds = latest.size();
+        List<String> pending = new ArrayList<>();
+        latest.forEach((docId, at) -> {
+            Long resolved = resolvedAt.get(docId);
+            if (resolved == null || at >= resolved) {
+                pending.add(docId);
+            }
+        });
+        return List.copyOf(pending);
+    }
+
+    /** Records that {@code docId} has been written, so later replays skip it unless it is quarantined again. */
+    public synchronized void markResolved(String docId) {
+        Objects.requireNonNull(docId, "docId");
+        if (docId.indexOf('\n') >= 0 || docId.indexOf('\r') >= 0) {
+            return;
+        }
+        Long previous = resolvedAt.get(docId);
+        if (previous != null && previous >= readAt) {
+            return;
+        }
+        resolvedAt.put(docId, readAt);
+        try {
+            if (resolvedOut == null) {
+                Files.createDirectories(dir);
+                resolvedChannel = FileChannel.open(
+                        dir.resolve(RESOLVED_FILE),
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND);
+                resolvedOut = Channels.newWriter(resolvedChannel, StandardCharsets.UTF_8);
+            }
+            resolvedOut.write(Long.toString(readAt));
+            resolvedOut.write('\t');
+            resolvedOut.write(docId);
+            resolvedOut.write('\n');
+            newlyResolved++;
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to record resolved quarantine entry", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (resolvedOut == null) {
+            return;
+        }
+        try {
+            resolvedOut.flush();
+            resolvedChannel.force(true);
+            resolvedOut.close();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to close " + dir.resolve(RESOLVED_FILE), e);
+        } finally {
+            resolvedOut = null;
+            resolvedChannel = null;
+        }
+    }
+
+    public synchronized Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("quarantinedIds", quarantinedIds);
+        metrics.put("resolvedBefore", resolvedBefore);
+        metrics.put("resolved", newlyResolved);
+        metrics.put("skippedSegmentTails", skippedSegmentTails);
+        return metrics;
+    }
+
+    private List<Path> textFiles() {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> out = new ArrayList<>();
+            files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.endsWith(".txt") && !name.equals(RESOLVED_FILE);
+                    })
+                    .sorted()
+                    .forEach(out::add);
+            return out;
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to list quarantine files in " + dir, e);
+        }
+    }
+
+    /** The epoch-millis prefix {@link QuarantineWriter} gives file names, else the file's modification time. */
+    private static long recordedAt(Path file) {
+        String name = file.getFileName().toString();
+        int dash = name.indexOf('-');
+        long at = dash > 0 ? parseMillis(name.substring(0, dash)) : Long.MIN_VALUE;
+        if (at != Long.MIN_VALUE) {
+            return at;
+        }
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read quarantine file " + file, e);
+        }
+    }
+
+    /** Parses a non-negative decimal timestamp, or returns {@link Long#MIN_VALUE}. */
+    private static long parseMillis(String s) {
+        if (s.isEmpty() || s.length() > 18) {
+            return Long.MIN_VALUE;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) < '0' || s.charAt(i) > '9') {
+                return Long.MIN_VALUE;
+            }
+        }
+        return Long.parseLong(s);
+    }
+
+    private static String readDocId(Path file) {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(DOC_ID_PREFIX)) {
+                    String docId = line.substring(DOC_ID_PREFIX.length());
+                    return docId.isBlank() ? null : docId;
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read quarantine file " + file, e);
+        }
+    }
+}
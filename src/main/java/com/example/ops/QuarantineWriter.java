@@ -8,14 +8,19 @@ import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
 
-public final class QuarantineWriter {
-    private static final int DEFAULT_MAX_EXCEPTION_CHARS = 64 * 1024;
+/** Writes one small text file per quarantined document. */
+public final class QuarantineWriter implements QuarantineSink {
+    static final int DEFAULT_MAX_EXCEPTION_CHARS = 64 * 1024;
     private static final int MAX_CAUSE_DEPTH = 8;
 
     private final Path quarantineDir;
     private final int maxExceptionChars;
+    private final LongAdder written = new LongAdder();
 
     public QuarantineWriter(Path quarantineDir) {
         this(quarantineDir, DEFAULT_MAX_EXCEPTION_CHARS);
@@ -29,6 +34,11 @@ public final class QuarantineWriter {
         this.maxExceptionChars = maxExceptionChars;
     }
 
+    @Override
+    public void record(String docId, String stage, Throwable exception) {
+        write(docId, stage, exception);
+    }
+
     public Path write(String docId, String stage, Throwable exception) {
         docId = requireNotBlank(docId, "docId");
         stage = requireNotBlank(stage, "stage");
@@ -46,12 +56,14 @@ public final class QuarantineWriter {
             for (int i = 0; i < 5; i++) {
                 Path path = quarantineDir.resolve(baseName + (i == 0 ? "" : "-" + i) + ".txt");
                 try {
-                    return Files.writeString(
+                    Path out = Files.writeString(
                             path,
                             payload,
                             StandardCharsets.UTF_8,
                             StandardOpenOption.CREATE_NEW,
                             StandardOpenOption.WRITE);
+                    written.increment();
+                    return out;
                 } catch (IOException e) {
                     last = e;
                 }
@@ -66,11 +78,16 @@ public final class QuarantineWriter {
         StringBuilder sb = new StringBuilder(1024);
         sb.append("docId=").append(docId).append('\n');
         sb.append("stage=").append(stage).append('\n');
-        appendExceptionChain(sb, exception);
+        sb.append(describe(exception, maxExceptionChars));
         return sb.toString();
     }
 
-    private void appendExceptionChain(StringBuilder sb, Throwable exception) {
+    /**
+     * The exception chain as {@code key=value} lines: class names and message hashes only, never message text,
+     * which may contain document content.
+     */
+    static String describe(Throwable exception, int maxChars) {
+        StringBuilder sb = new StringBuilder(512);
         int depth = 0;
         Throwable current = exception;
         while (current != null && depth < MAX_CAUSE_DEPTH) {
@@ -85,23 +102,24 @@ public final class QuarantineWriter {
             sb.append("causeTruncated=true\n");
         }
 
-        if (sb.length() > maxExceptionChars) {
-            sb.setLength(maxExceptionChars);
+        if (sb.length() > maxChars) {
+            sb.setLength(maxChars);
             sb.append("\n... truncated ...\n");
         }
+        return sb.toString();
     }
 
-    private static String safe(String s) {
-        return s == null ? "" : s;
-    }
-
-    private static String requireNotBlank(String value, String name) {
+    static String requireNotBlank(String value, String name) {
         if (value == null || value.isBlank()) {
             throw new IllegalArgumentException(name + " must be non-blank");
         }
         return value;
     }
 
+    private static String safe(String s) {
+        return s == null ? "" : s;
+    }
+
     private static String stageSlug(String stage) {
         StringBuilder sb = new StringBuilder(stage.length());
         for (int i = 0; i < stage.length(); i++) {
@@ -132,6 +150,14 @@ public final class QuarantineWriter {
         return hex.toString();
     }
 
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("mode", "files");
+        metrics.put("written", written.sum());
+        return metrics;
+    }
+
     private static String sha256Hex(String value) {
         byte[] digest;
         try {
@@ -3,68 +3,123 @@ package com.example.ops;
 import java.time.Duration;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.LockSupport;
+import reactor.core.publisher.Mono;
 
 /**
- * Minimal, threadsafe, fixed-rate limiter.
+ * Minimal, threadsafe token-bucket limiter (GCRA).
  * <p>
- * Each {@link #acquire()} reserves one permit. Callers will block until the permit is available.
+ * The bucket refills at {@code permitsPerSecond} and holds up to {@code burst} permits, so up to {@code burst}
+ * permits can be taken back to back after an idle period. Requests may take several permits at once (e.g. one
+ * per payload byte); a request larger than the burst is admitted once the bucket would have refilled enough.
+ * <p>
+ * Each {@link #acquire()} reserves its permits. Callers will block until the permits are available;
+ * {@link #acquireAsync()} makes the same reservation but waits on a timer instead of a thread.
  */
 public final class RateLimiter {
-    private final long intervalNanos;
-    private final AtomicLong nextFreeNanos;
+    private final double nanosPerPermit;
+    private final long burst;
+    private final long burstNanos;
+    /** Theoretical arrival time: when the bucket would be empty again given all reservations so far. */
+    private final AtomicLong theoreticalArrivalNanos;
 
-    private RateLimiter(long intervalNanos) {
-        this.intervalNanos = Math.max(0, intervalNanos);
-        this.nextFreeNanos = new AtomicLong(System.nanoTime());
+    private RateLimiter(double nanosPerPermit, long burst) {
+        this.nanosPerPermit = Math.max(0d, nanosPerPermit);
+        this.burst = burst;
+        this.burstNanos = (long) (this.nanosPerPermit * burst);
+        this.theoreticalArrivalNanos = new AtomicLong(System.nanoTime());
     }
 
     public static RateLimiter create(double permitsPerSecond) {
+        return create(permitsPerSecond, 1L);
+    }
+
+    public static RateLimiter create(double permitsPerSecond, long burst) {
         if (!(permitsPerSecond > 0.0) || Double.isNaN(permitsPerSecond) || Double.isInfinite(permitsPerSecond)) {
             throw new IllegalArgumentException("permitsPerSecond must be finite and > 0");
         }
-        double interval = 1_000_000_000d / permitsPerSecond;
-        long intervalNanos = interval < 1d ? 0L : (long) interval;
-        return new RateLimiter(intervalNanos);
+        if (burst < 1) {
+            throw new IllegalArgumentException("burst must be >= 1");
+        }
+        return new RateLimiter(1_000_000_000d / permitsPerSecond, burst);
     }
 
     public static RateLimiter unlimited() {
-        return new RateLimiter(0L);
+        return new RateLimiter(0d, 1L);
     }
 
     public void acquire() {
-        if (intervalNanos == 0) {
-            return;
+        acquire(1L);
+    }
+
+    public void acquire(long permits) {
+        long sleepNanos = reserve(permits);
+        if (sleepNanos > 0) {
+            LockSupport.parkNanos(sleepNanos);
         }
+    }
 
-        while (true) {
-            long now = System.nanoTime();
-            long currentNext = nextFreeNanos.get();
-            long allowedAt = Math.max(now, currentNext);
-            long newNext = allowedAt + intervalNanos;
-            if (nextFreeNanos.compareAndSet(currentNext, newNext)) {
-                long sleepNanos = allowedAt - now;
-                if (sleepNanos > 0) {
-                    LockSupport.parkNanos(sleepNanos);
-                }
-                return;
+    /** Reserves a permit immediately and completes once it is due, without blocking a thread. */
+    public Mono<Void> acquireAsync() {
+        return acquireAsync(1L);
+    }
+
+    public Mono<Void> acquireAsync(long permits) {
+        return Mono.defer(() -> {
+            long delayNanos = reserve(permits);
+            if (delayNanos <= 0) {
+                return Mono.empty();
             }
-        }
+            return Mono.delay(Duration.ofNanos(delayNanos)).then();
+        });
     }
 
     public boolean tryAcquire() {
-        if (intervalNanos == 0) {
+        if (nanosPerPermit == 0d) {
             return true;
         }
 
         long now = System.nanoTime();
-        long currentNext = nextFreeNanos.get();
-        if (now < currentNext) {
+        long currentTat = theoreticalArrivalNanos.get();
+        long newTat = Math.max(now, currentTat) + cost(1L);
+        if (newTat - burstNanos > now) {
             return false;
         }
-        return nextFreeNanos.compareAndSet(currentNext, now + intervalNanos);
+        return theoreticalArrivalNanos.compareAndSet(currentTat, newTat);
+    }
+
+    /** Claims the permits and returns how long the caller must wait for them, in nanoseconds. */
+    private long reserve(long permits) {
+        if (permits < 0) {
+            throw new IllegalArgumentException("permits must be >= 0");
+        }
+        if (nanosPerPermit == 0d || permits == 0) {
+            return 0L;
+        }
+
+        long cost = cost(permits);
+        while (true) {
+            long now = System.nanoTime();
+            long currentTat = theoreticalArrivalNanos.get();
+            long newTat = Math.max(now, currentTat) + cost;
+            if (theoreticalArrivalNanos.compareAndSet(currentTat, newTat)) {
+                return newTat - burstNanos - now;
+            }
+        }
+    }
+
+    private long cost(long permits) {
+        return (long) Math.ceil(permits * nanosPerPermit);
+    }
+
+    public boolean isUnlimited() {
+        return nanosPerPermit == 0d;
+    }
+
+    public long burst() {
+        return burst;
     }
 
     public Duration interval() {
-        return Duration.ofNanos(intervalNanos);
+        return Duration.ofNanos((long) nanosPerPermit);
     }
 }
@@ -0,0 +1,82 @@
+package com.example.ops;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps retries across all documents so an outage does not turn into a retry storm.
+ * <p>
+ * Every first attempt deposits {@code ratio} of a retry token (up to {@link #MAX_BALANCE} tokens) and every retry
+ * withdraws one, so retries stay within {@code ratio} of the request rate. A retry the balance cannot cover may
+ * still draw on a floor of {@code minPerSecond}, which keeps low-traffic runs retrying.
+ */
+public final class RetryBudget {
+    static final long MAX_BALANCE = 100;
+    private static final long SCALE = 1000;
+
+    private final long depositPerRequest;
+    private final RateLimiter floor;
+    private final boolean unlimited;
+    private final AtomicLong balance = new AtomicLong();
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder denied = new LongAdder();
+
+    private RetryBudget(double ratio, RateLimiter floor, boolean unlimited) {
+        this.depositPerRequest = Math.round(ratio * SCALE);
+        this.floor = floor;
+        this.unlimited = unlimited;
+    }
+
+    public static RetryBudget create(double ratio, double minPerSecond) {
+        if (!(ratio >= 0.0) || Double.isInfinite(ratio)) {
+            throw new IllegalArgumentException("ratio must be finite and >= 0");
+        }
+        if (!(minPerSecond >= 0.0) || Double.isInfinite(minPerSecond)) {
+            throw new IllegalArgumentException("minPerSecond must be finite and >= 0");
+        }
+        return new RetryBudget(ratio, minPerSecond > 0 ? RateLimiter.create(minPerSecond) : null, false);
+    }
+
+    public static RetryBudget unlimited() {
+        return new RetryBudget(0, null, true);
+    }
+
+    /** Records a first attempt. */
+    public void recordRequest() {
+        if (depositPerRequest > 0) {
+            balance.accumulateAndGet(depositPerRequest, (current, d) -> Math.min(MAX_BALANCE * SCALE, current + d));
+        }
+    }
+
+    /** Takes one retry token; {@code false} if the budget is spent and the caller should give up. */
+    public boolean tryRetry() {
+        if (unlimited || withdraw() || (floor != null && floor.tryAcquire())) {
+            allowed.increment();
+            return true;
+        }
+        denied.increment();
+        return false;
+    }
+
+    private boolean withdraw() {
+        while (true) {
+            long current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+            if (balance.compareAndSet(current, current - SCALE)) {
+                return true;
+            }
+        }
+    }
+
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("allowed", allowed.sum());
+        metrics.put("denied", denied.sum());
+        metrics.put("balance", balance.get() / SCALE);
+        return metrics;
+    }
+}
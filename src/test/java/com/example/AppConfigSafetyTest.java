@@ -1,7 +1,12 @@
 package com.example;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.example.migrate.MigrationJob;
+import com.example.migrate.ScanBatchTuner;
+import java.time.Duration;
 import java.util.Properties;
 import org.junit.jupiter.api.Test;
 
@@ -28,6 +33,21 @@ class AppConfigSafetyTest {
         assertThrows(IllegalArgumentException.class, () -> App.validateStartupConfig(props));
     }
 
+    @Test
+    void piiPathsAlone_satisfyPiiRuleRequirement() {
+        Properties props = baselineProps();
+        props.setProperty("pii.keys", "");
+        props.setProperty("pii.paths", "$.customer.ssn, $..dob");
+        App.validateStartupConfig(props);
+    }
+
+    @Test
+    void invalidPiiPath_failsFast() {
+        Properties props = baselineProps();
+        props.setProperty("pii.paths", "customer.ssn");
+        assertThrows(IllegalArgumentException.class, () -> App.validateStartupConfig(props));
+    }
+
     @Test
     void invalidDurabilityValue_failsFast() {
         Properties props = baselineProps();
@@ -35,6 +55,149 @@ class AppConfigSafetyTest {
         assertThrows(IllegalArgumentException.class, () -> App.validateStartupConfig(props));
     }
 
+    @Test
+    void invalidPiiRewriteMode_failsFast() {
+        Properties props = baselineProps();
+        props.setProperty("pii.rewriteMode", "NOT_A_MODE");
+        assertThrows(IllegalArgumentException.class, () -> App.validateStartupConfig(props));
+    }
+
+    @Test
+    void invalidIvSource_failsFast() {
+        Properties props = baselineProps();
+        props.setProperty("crypto.ivSource", "counter");
+        assertThrows(IllegalArgumentException.class, () -> App.validateStartupConfig(props));
+    }
+
+    @Test
+    void invalidScanMode_failsFast() {
+        Properties props = baselineProps();
+        props.setProperty("migration.scan.mode", "bodies");
+        assertThrows(IllegalArgumentException.class, () -> App.validateStartupConfig(props));
+    }
+
+    @Test
+    void encryptQueueSmallerThanMaxInFlight_failsFast() {
+        Properties props = baselineProps();
+        props.setProperty("migration.concurrency.max", "32");
+        props.setProperty("migration.encrypt.queueCapacity", "8");
+        assertThrows(IllegalArgumentException.class, () -> App.validateStartupConfig(props));
+    }
+
+    @Test
+    void invalidRateLimitBurst_failsFast() {
+        Properties props = baselineProps();
+        props.setProperty("migration.rateLimit.write.permitsPerSecond", "100");
+        props.setProperty("migration.rateLimit.write.burst", "0");
+        assertThrows(IllegalArgumentException.class, () -> App.validateStartupConfig(props));
+    }
+
+    @Test
+    void legacyPermitsPerSecond_isDefaultForReadsAndWrites() {
+        Properties props = baselineProps();
+        props.setProperty("migration.rateLimit.permitsPerSecond", "50");
+        props.setProperty("migration.rateLimit.write.permitsPerSecond", "10");
+
+        MigrationJob.RateLimits limits = App.createRateLimits(props);
+
+        assertEquals(Duration.ofMillis(20), limits.reads().interval());
+        assertEquals(Duration.ofMillis(100), limits.writes().interval());
+        assertTrue(limits.readBytes().isUnlimited());
+    }
+
+    @Test
+    void adaptiveConcurrencyMinAboveMax_failsFast() {
+        Properties props = baselineProps();
+        props.setProperty("migration.concurrency.adaptive", "true");
+        props.setProperty("migration.concurrency.max", "8");
+        props.setProperty("migration.concurrency.min", "16");
+        assertThrows(IllegalArgumentException.class, () -> App.validateStartupConfig(props));
+    }
+
+    @Test
+    void scanAutoTune_startsAtDefaultItemLimit_andRejectsMaxBelowStart() {
+        Properties props = baselineProps();
+        props.setProperty("migration.scan.autoTune", "true");
+
+        ScanBatchTuner tuner = App.createScanBatchTuner(props);
+
+        assertTrue(tuner.isAutoTune());
+        assertEquals(50, tuner.itemLimit());
+
+        props.setProperty("migration.scan.autoTune.maxItems", "20");
+        assertThrows(IllegalArgumentException.class, () -> App.validateStartupConfig(props));
+    }
+
+    @Test
+    void invalidReadModeOrHedgePercentile_failsFast() {
+        Properties props = baselineProps();
+        props.setProperty("migration.read.mode", "nearest");
+        assertThrows(IllegalArgumentException.class, () -> App.validateStartupConfig(props));
+
+        props.setProperty("migration.read.mode", "hedged");
+        props.setProperty("migration.read.hedge.percentile", "100");
+        assertThrows(IllegalArgumentException.class, () -> App.validateStartupConfig(props));
+    }
+
+    @Test
+    void invalidRetrySettings_failFast() {
+        Properties props = baselineProps();
+        props.setProperty("migration.retry.upsert.maxAttempts", "0");
+        assertThrows(IllegalArgumentException.class, () -> App.validateStartupConfig(props));
+
+        props.setProperty("migration.retry.upsert.maxAttempts", "3");
+        props.setProperty("migration.retry.jitter", "1.5");
+        assertThrows(IllegalArgumentException.class, () -> App.validateStartupConfig(props));
+    }
+
+    @Test
+    void invalidBreakerSettings_failFast() {
+        Properties props = baselineProps();
+        props.setProperty("migration.breaker.enabled", "true");
+        props.setProperty("migration.breaker.window", "10");
+        props.setProperty("migration.breaker.minCalls", "20");
+        assertThrows(IllegalArgumentException.class, () -> App.validateStartupConfig(props));
+    }
+
+    @Test
+    void invalidCheckpointFsyncPolicy_failsFast() {
+        Properties props = baselineProps();
+        props.setProperty("migration.checkpoint.fsync", "sometimes");
+        assertThrows(IllegalArgumentException.class, () -> App.validateStartupConfig(props));
+    }
+
+    @Test
+    void invalidQuarantineMode_failsFast() {
+        Properties props = baselineProps();
+        props.setProperty("migration.quarantine.mode", "database");
+        assertThrows(IllegalArgumentException.class, () -> App.validateStartupConfig(props));
+
+        props.setProperty("migration.quarantine.mode", "log");
+        props.setProperty("migration.quarantine.log.segmentBytes", "0");
+        assertThrows(IllegalArgumentException.class, () -> App.validateStartupConfig(props));
+    }
+
+    @Test
+    void invalidRunMode_failsFast() {
+        Properties props = baselineProps();
+        props.setProperty("migration.runMode", "rescan");
+        assertThrows(IllegalArgumentException.class, () -> App.validateStartupConfig(props));
+
+        props.setProperty("migration.runMode", "replay");
+        App.validateStartupConfig(props);
+    }
+
+    @Test
+    void invalidShutdownAndKillSwitchTimings_failFast() {
+        Properties props = baselineProps();
+        props.setProperty("migration.shutdown.drainTimeout", "-PT1S");
+        assertThrows(IllegalArgumentException.class, () -> App.validateStartupConfig(props));
+
+        props.setProperty("migration.shutdown.drainTimeout", "20000");
+        props.setProperty("migration.killSwitch.pollInterval", "0");
+        assertThrows(IllegalArgumentException.class, () -> App.validateStartupConfig(props));
+    }
+
     private static Properties baselineProps() {
         Properties props = new Properties();
         props.setProperty("sourceWritesFrozen", "true");
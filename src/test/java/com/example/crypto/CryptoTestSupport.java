@@ -3,11 +3,15 @@ package com.example.crypto;
 import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
 import java.util.Base64;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import javax.crypto.Cipher;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.GCMParameterSpec;
 
 final class CryptoTestSupport {
+    private static final Pattern ENVELOPE_CIPHERTEXT = Pattern.compile("\"iv\":\"([A-Za-z0-9+/=]{16})\",\"ct\":\"([A-Za-z0-9+/=]+)\"");
+
     private CryptoTestSupport() {
     }
 
@@ -44,5 +48,19 @@ final class CryptoTestSupport {
         cipher.updateAAD(docId.getBytes(StandardCharsets.UTF_8));
         return cipher.doFinal(ct);
     }
-}
 
+    /**
+     * Replaces each envelope's random {@code iv}/{@code ct} pair with the decrypted plaintext JSON so that
+     * outputs of different encryptors can be compared byte for byte.
+     */
+    static String decryptEnvelopesInPlace(byte[] json, SecretKey key, String docId) throws Exception {
+        Matcher m = ENVELOPE_CIPHERTEXT.matcher(new String(json, StandardCharsets.UTF_8));
+        StringBuilder sb = new StringBuilder();
+        while (m.find()) {
+            byte[] plaintext = decryptAes256Gcm(m.group(1), m.group(2), key, docId);
+            m.appendReplacement(sb, Matcher.quoteReplacement("\"pt\":" + new String(plaintext, StandardCharsets.UTF_8)));
+        }
+        m.appendTail(sb);
+        return sb.toString();
+    }
+}
@@ -8,6 +8,15 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.crypto.AEADBadTagException;
 import javax.crypto.SecretKey;
 import org.junit.jupiter.api.Test;
@@ -78,4 +87,65 @@ class EncryptorTest {
 
         assertThrows(NullPointerException.class, () -> encryptor.encrypt(null, "doc-1"));
     }
+
+    @Test
+    void encryptIntoBuffer_writesIvThenCiphertextAtOffset() throws Exception {
+        SecretKey key = CryptoTestSupport.deterministicAes256Key();
+        Encryptor encryptor = new Encryptor(key, "kid-1", CryptoTestSupport.deterministicSecureRandom());
+
+        byte[] input = "xxpayloadyy".getBytes(StandardCharsets.UTF_8);
+        byte[] out = new byte[3 + Encryptor.outputLength(7)];
+        int written = encryptor.encrypt(input, 2, 7, "doc-1", out, 3);
+
+        assertEquals(Encryptor.outputLength(7), written);
+        int ivLength = Encryptor.ivLength();
+        String iv = Base64.getEncoder().encodeToString(Arrays.copyOfRange(out, 3, 3 + ivLength));
+        String ct = Base64.getEncoder().encodeToString(Arrays.copyOfRange(out, 3 + ivLength, 3 + written));
+        byte[] roundTrip = CryptoTestSupport.decryptAes256Gcm(iv, ct, key, "doc-1");
+        assertArrayEquals("payload".getBytes(StandardCharsets.UTF_8), roundTrip);
+    }
+
+    @Test
+    void encryptIntoBuffer_rejectsTooSmallOutput() {
+        SecretKey key = CryptoTestSupport.deterministicAes256Key();
+        Encryptor encryptor = new Encryptor(key, "kid-1", CryptoTestSupport.deterministicSecureRandom());
+
+        byte[] input = "payload".getBytes(StandardCharsets.UTF_8);
+        byte[] out = new byte[Encryptor.outputLength(input.length) - 1];
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> encryptor.encrypt(input, 0, input.length, "doc-1", out, 0));
+    }
+
+    @Test
+    void reusedPerThreadCiphers_produceUniqueIvsAndValidCiphertexts() throws Exception {
+        SecretKey key = CryptoTestSupport.deterministicAes256Key();
+        Encryptor encryptor = new Encryptor(key, "kid-1");
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<Encryptor.EncryptionEnvelope>>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(pool.submit(() -> {
+                    List<Encryptor.EncryptionEnvelope> envs = new ArrayList<>();
+                    for (int i = 0; i < 200; i++) {
+                        envs.add(encryptor.encrypt(("v" + i).getBytes(StandardCharsets.UTF_8), "doc-" + i));
+                    }
+                    return envs;
+                }));
+            }
+
+            Set<String> ivs = new HashSet<>();
+            for (Future<List<Encryptor.EncryptionEnvelope>> future : futures) {
+                List<Encryptor.EncryptionEnvelope> envs = future.get();
+                for (int i = 0; i < envs.size(); i++) {
+                    Encryptor.EncryptionEnvelope env = envs.get(i);
+                    assertTrue(ivs.add(env.iv()));
+                    byte[] roundTrip = CryptoTestSupport.decryptAes256Gcm(env.iv(), env.ct(), key, "doc-" + i);
+                    assertArrayEquals(("v" + i).getBytes(StandardCharsets.UTF_8), roundTrip);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
 }
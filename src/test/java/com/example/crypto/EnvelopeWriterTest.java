@@ -0,0 +1,71 @@
+package com.example.crypto;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import javax.crypto.SecretKey;
+import org.junit.jupiter.api.Test;
+
+class EnvelopeWriterTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void writesEnvelopeThatDecryptsToPlaintext() throws Exception {
+        SecretKey key = CryptoTestSupport.deterministicAes256Key();
+        EnvelopeWriter writer = new EnvelopeWriter(new Encryptor(key, "kid-1", CryptoTestSupport.deterministicSecureRandom()));
+
+        byte[] plaintext = "\"123-45-6789\"".getBytes(StandardCharsets.UTF_8);
+        JsonNode envelope = mapper.readTree(write(writer, plaintext, "doc-1"));
+
+        assertEquals(1, envelope.get("v").asInt());
+        JsonNode enc = envelope.get("_enc");
+        assertEquals("AES-256-GCM", enc.get("alg").asText());
+        assertEquals("kid-1", enc.get("kid").asText());
+        assertEquals(16, enc.get("iv").asText().length());
+        assertArrayEquals(plaintext,
+                CryptoTestSupport.decryptAes256Gcm(enc.get("iv").asText(), enc.get("ct").asText(), key, "doc-1"));
+    }
+
+    @Test
+    void matchesLayoutOfStringEnvelope() throws Exception {
+        SecretKey key = CryptoTestSupport.deterministicAes256Key();
+        EnvelopeWriter writer = new EnvelopeWriter(new Encryptor(key, "kid-1", CryptoTestSupport.deterministicSecureRandom()));
+        Encryptor.EncryptionEnvelope expected =
+                new Encryptor(key, "kid-1", CryptoTestSupport.deterministicSecureRandom())
+                        .encrypt("42".getBytes(StandardCharsets.UTF_8), "doc-1");
+
+        String json = new String(write(writer, "42".getBytes(StandardCharsets.UTF_8), "doc-1"), StandardCharsets.UTF_8);
+
+        assertEquals("{\"v\":1,\"_enc\":{\"alg\":\"AES-256-GCM\",\"kid\":\"kid-1\",\"iv\":\"" + expected.iv()
+                + "\",\"ct\":\"" + expected.ct() + "\"}}", json);
+    }
+
+    @Test
+    void largePlaintext_beyondRetainedScratchBuffer_roundTrips() throws Exception {
+        SecretKey key = CryptoTestSupport.deterministicAes256Key();
+        EnvelopeWriter writer = new EnvelopeWriter(new Encryptor(key, "kid-1"));
+
+        byte[] plaintext = new byte[200_000];
+        Arrays.fill(plaintext, (byte) 'a');
+        JsonNode enc = mapper.readTree(write(writer, plaintext, "doc-1")).get("_enc");
+
+        assertTrue(enc.get("ct").asText().indexOf('\n') < 0);
+        assertArrayEquals(plaintext,
+                CryptoTestSupport.decryptAes256Gcm(enc.get("iv").asText(), enc.get("ct").asText(), key, "doc-1"));
+    }
+
+    private byte[] write(EnvelopeWriter writer, byte[] plaintext, String docId) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+            writer.write(generator, plaintext, docId);
+        }
+        return out.toByteArray();
+    }
+}
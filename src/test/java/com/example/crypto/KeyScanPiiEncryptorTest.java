@@ -156,6 +156,50 @@ class KeyScanPiiEncryptorTest {
         }
     }
 
+    @Test
+    void pathSelectors_encryptOnlySelectedPaths_identicallyInEveryRewriteMode() throws Exception {
+        SecretKey key = CryptoTestSupport.deterministicAes256Key();
+        PiiFieldMatcher noKeys = new PiiFieldMatcher(List.of(), null);
+        PiiPathTrie paths = PiiPathTrie.compile(List.of("$.customer.name", "$.contacts[*].phone", "$..dob", "$.tags[*]"));
+
+        String json = """
+                {
+                  "customer": { "name": "Bob", "dob": "1970-01-01" },
+                  "product": { "name": "Widget", "specs": { "weight": 1.50 } },
+                  "contacts": [ { "phone": "+1-555", "name": "home" }, { "email": "x" } ],
+                  "history": [ { "events": [ { "dob": [1, 2] } ] } ],
+                  "tags": [ "vip", { "v": 1, "_enc": { "alg": "legacy" } } ]
+                }
+                """;
+        byte[] input = json.getBytes(StandardCharsets.UTF_8);
+
+        byte[] treeOut = new KeyScanPiiEncryptor(
+                new Encryptor(key, "kid-1", CryptoTestSupport.deterministicSecureRandom()), noKeys, paths, mapper)
+                .encrypt(input, "doc-p");
+        JsonNode root = mapper.readTree(treeOut);
+        assertEncryptedEnvelopeShape(root.at("/customer/name"));
+        assertEncryptedEnvelopeShape(root.at("/customer/dob"));
+        assertEncryptedEnvelopeShape(root.at("/contacts/0/phone"));
+        assertEncryptedEnvelopeShape(root.at("/history/0/events/0/dob"));
+        assertEncryptedEnvelopeShape(root.at("/tags/0"));
+        assertEquals("Widget", root.at("/product/name").asText());
+        assertEquals("home", root.at("/contacts/0/name").asText());
+        assertEquals("legacy", root.at("/tags/1/_enc/alg").asText());
+
+        String expected = CryptoTestSupport.decryptEnvelopesInPlace(treeOut, key, "doc-p");
+        byte[] streamingOut = new StreamingPiiEncryptor(
+                new Encryptor(key, "kid-1", CryptoTestSupport.deterministicSecureRandom()), noKeys, paths, mapper)
+                .encrypt(input, "doc-p");
+        assertEquals(expected, CryptoTestSupport.decryptEnvelopesInPlace(streamingOut, key, "doc-p"));
+
+        byte[] splicedOut = new SplicingPiiEncryptor(
+                new Encryptor(key, "kid-1", CryptoTestSupport.deterministicSecureRandom()), noKeys, paths, mapper)
+                .encrypt(input, "doc-p");
+        assertEquals(
+                expected,
+                CryptoTestSupport.decryptEnvelopesInPlace(mapper.writeValueAsBytes(mapper.readTree(splicedOut)), key, "doc-p"));
+    }
+
     private void assertEncryptedAndDecryptsToOriginal(JsonNode wrapper, JsonNode originalValue, SecretKey key, String docId) throws Exception {
         assertEncryptedEnvelopeShape(wrapper);
         ObjectNode enc = (ObjectNode) wrapper.get("_enc");
@@ -0,0 +1,51 @@
+package com.example.crypto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+class PiiFieldMatcherTest {
+    @Test
+    void matchesKeysCaseInsensitively_andRegex() {
+        PiiFieldMatcher matcher = new PiiFieldMatcher(
+                List.of("ssn", "Email"), Pattern.compile(".*secret.*", Pattern.CASE_INSENSITIVE));
+
+        assertTrue(matcher.matches("SSN"));
+        assertTrue(matcher.matches("eMAIL"));
+        assertTrue(matcher.matches("mySecretToken"));
+        assertFalse(matcher.matches("ssn2"));
+        assertFalse(matcher.matches("name"));
+        assertFalse(matcher.matches(""));
+        assertFalse(matcher.matches(null));
+    }
+
+    @Test
+    void memoizesDecisionsPerDistinctName() {
+        PiiFieldMatcher matcher = new PiiFieldMatcher(List.of("ssn"), Pattern.compile("secret.*"));
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(matcher.matches("ssn"));
+            assertFalse(matcher.matches("name"));
+        }
+
+        assertEquals(2, matcher.cacheMisses());
+        assertEquals(8, matcher.cacheHits());
+        assertEquals(2, matcher.cacheSize());
+    }
+
+    @Test
+    void fullCache_stillDecidesCorrectly() {
+        PiiFieldMatcher matcher = new PiiFieldMatcher(List.of("ssn"), null, 1);
+
+        assertFalse(matcher.matches("name"));
+        assertTrue(matcher.matches("ssn"));
+        assertTrue(matcher.matches("SSN"));
+
+        assertEquals(1, matcher.cacheSize());
+        assertEquals(3, matcher.cacheMisses());
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.crypto;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+class PiiKeyPrefilterTest {
+    @Test
+    void skipsDocumentsWithoutCandidateKeys_andMatchesCaseInsensitively() {
+        PiiKeyPrefilter filter = PiiKeyPrefilter.compile(List.of("dob", "Phone"), null);
+
+        assertTrue(filter.enabled());
+        assertFalse(filter.mayContainPii(bytes("{\"name\":\"alice\",\"dob_note\":\"x\",\"phones\":[1]}")));
+        assertTrue(filter.mayContainPii(bytes("{\"profile\":{\"DOB\":\"1\"}}")));
+        assertTrue(filter.mayContainPii(bytes("{\"a\":[{\"pHoNe\" : \"x\"}]}")));
+        assertFalse(filter.mayContainPii(new byte[0]));
+    }
+
+    @Test
+    void overlappingPatterns_areFoundAcrossFailureLinks() {
+        PiiKeyPrefilter filter = PiiKeyPrefilter.compile(List.of("dob", "ob"), null);
+
+        assertTrue(filter.mayContainPii(bytes("{\"o\":{\"ob\":1}}")));
+        assertTrue(filter.mayContainPii(bytes("{\"ddob\":0,\"dob\":1}")));
+        assertFalse(filter.mayContainPii(bytes("{\"ddob\":0}")));
+    }
+
+    @Test
+    void escapes_forceParse() {
+        PiiKeyPrefilter filter = PiiKeyPrefilter.compile(List.of("dob", "e/mal"), null);
+
+        assertTrue(filter.enabled());
+        assertTrue(filter.mayContainPii(bytes("{\"\\u0064ob\":\"1\"}")));
+        assertTrue(filter.mayContainPii(bytes("{\"e\\/mal\":\"1\"}")));
+        assertFalse(filter.mayContainPii(bytes("{\"e_mal\":\"1\"}")));
+    }
+
+    @Test
+    void keysWithNonAsciiCaseFolds_disableTheFilter() {
+        // "\u212Aey" (Kelvin sign) matches "key" case-insensitively, but has no ASCII 'k' byte to find.
+        assertTrue(new PiiFieldMatcher(List.of("key"), null).matches("\u212Aey"));
+        assertFalse(PiiKeyPrefilter.compile(List.of("key"), null).enabled());
+        assertFalse(PiiKeyPrefilter.compile(List.of("dob", "ssn"), null).enabled());
+        assertFalse(PiiKeyPrefilter.compile(List.of("id"), null).enabled());
+        assertFalse(PiiKeyPrefilter.compile(
+                List.of(), Pattern.compile(".*secret.*", Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE)).enabled());
+    }
+
+    @Test
+    void literalRegex_isMatchedUnquoted() {
+        PiiKeyPrefilter filter = PiiKeyPrefilter.compile(List.of(), Pattern.compile(".*secret.*", Pattern.CASE_INSENSITIVE));
+
+        assertTrue(filter.enabled());
+        assertTrue(filter.mayContainPii(bytes("{\"mySecretToken\":1}")));
+        assertFalse(filter.mayContainPii(bytes("{\"token\":1}")));
+        // Without UNICODE_CASE the regex folds ASCII only, so it cannot match the long s either.
+        assertFalse(filter.mayContainPii(bytes("{\"\u017Fecret\":1}")));
+    }
+
+    @Test
+    void pathSelectors_requireTheirLastLiteralName() {
+        PiiKeyPrefilter filter = PiiKeyPrefilter.compile(List.of(), null, PiiPathTrie.compile(List.of("$.contacts[*].phone")));
+
+        assertTrue(filter.mayContainPii(bytes("{\"contacts\":[{\"phone\":1}]}")));
+        assertFalse(filter.mayContainPii(bytes("{\"contacts\":[]}")));
+        assertFalse(PiiKeyPrefilter.compile(List.of("ssn"), null, PiiPathTrie.compile(List.of("$.*"))).enabled());
+    }
+
+    @Test
+    void unsupportedRulesDisableTheFilter() {
+        assertFalse(PiiKeyPrefilter.compile(List.of("ssn"), Pattern.compile("(ssn|tax)_id")).enabled());
+        assertFalse(PiiKeyPrefilter.compile(List.of("naïve"), null).enabled());
+        assertFalse(PiiKeyPrefilter.compile(List.of(), null).enabled());
+        assertTrue(PiiKeyPrefilter.disabled().mayContainPii(bytes("{}")));
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.crypto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PiiPathTrieTest {
+    @Test
+    void childAndArraySelectors_matchOnlyAtTheirPath() {
+        PiiPathTrie trie = PiiPathTrie.compile(List.of("$.customer.ssn", "$.contacts[*].phone"));
+        PiiPathTrie.State root = trie.root();
+
+        assertTrue(root.field("customer").field("SSN").terminal());
+        assertFalse(root.field("product").field("ssn").terminal());
+        assertTrue(root.field("product").isDead());
+        assertTrue(root.field("contacts").element().field("phone").terminal());
+        assertTrue(root.field("contacts").field("phone").isDead());
+    }
+
+    @Test
+    void descendantSelector_matchesAtAnyDepth() {
+        PiiPathTrie trie = PiiPathTrie.compile(List.of("$..dob"));
+        PiiPathTrie.State root = trie.root();
+
+        assertTrue(root.field("dob").terminal());
+        assertTrue(root.field("a").element().field("b").field("DOB").terminal());
+        assertFalse(root.field("a").field("b").terminal());
+        assertFalse(root.field("a").isDead());
+    }
+
+    @Test
+    void wildcardsAndBracketNames() {
+        PiiPathTrie trie = PiiPathTrie.compile(List.of("$.secrets.*", "$['weird.name'][*]"));
+        PiiPathTrie.State root = trie.root();
+
+        assertTrue(root.field("secrets").field("anything").terminal());
+        assertTrue(root.field("weird.name").element().terminal());
+        assertEquals(List.of("secrets", "weird.name"), trie.anchorNames());
+    }
+
+    @Test
+    void statesAreSharedAcrossEquivalentPositions() {
+        PiiPathTrie trie = PiiPathTrie.compile(List.of("$..ssn"));
+        PiiPathTrie.State root = trie.root();
+
+        assertSame(root.field("a"), root.field("b").field("c"));
+        assertSame(root.element(), root.field("x"));
+    }
+
+    @Test
+    void anchorNamesAreNullWhenASelectorHasNoLiteral() {
+        assertNull(PiiPathTrie.compile(List.of("$.ssn", "$.*")).anchorNames());
+    }
+
+    @Test
+    void invalidSelectors_areRejected() {
+        assertThrows(IllegalArgumentException.class, () -> PiiPathTrie.compile(List.of("customer.ssn")));
+        assertThrows(IllegalArgumentException.class, () -> PiiPathTrie.compile(List.of("$")));
+        assertThrows(IllegalArgumentException.class, () -> PiiPathTrie.compile(List.of("$..*")));
+        assertThrows(IllegalArgumentException.class, () -> PiiPathTrie.compile(List.of("$.a[0]")));
+        assertThrows(IllegalArgumentException.class, () -> PiiPathTrie.compile(List.of("$['a")));
+    }
+
+    @Test
+    void emptyTrie_isDeadEverywhere() {
+        assertTrue(PiiPathTrie.empty().root().isDead());
+        assertTrue(PiiPathTrie.compile(List.of()).isEmpty());
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.crypto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.regex.Pattern;
+import javax.crypto.SecretKey;
+import org.junit.jupiter.api.Test;
+
+class SplicingPiiEncryptorTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void preservesNonPiiBytesVerbatim_andSplicesEnvelopesIn() throws Exception {
+        SecretKey key = CryptoTestSupport.deterministicAes256Key();
+        SplicingPiiEncryptor splicing = new SplicingPiiEncryptor(
+                new Encryptor(key, "kid-1", CryptoTestSupport.deterministicSecureRandom()),
+                List.of("ssn", "email"),
+                Pattern.compile(".*secret.*", Pattern.CASE_INSENSITIVE),
+                mapper);
+
+        String json = "{\n  \"ratio\" : 1.10,\n  \"SSN\" : \"999-88-7777\" ,\n"
+                + "  \"name\": \"h\\u00e9llo é\",\n"
+                + "  \"list\": [ { \"email\" : [ \"a@b.c\" , 2.50 ] }, {\"secretCode\":true} ],\n"
+                + "  \"legacy\": { \"ssn\": { \"v\": 1, \"_enc\": { \"alg\": \"x\" } } },\n"
+                + "  \"tail\": -7\n}\n";
+        byte[] out = splicing.encrypt(json.getBytes(StandardCharsets.UTF_8), "doc-1");
+
+        String expected = "{\n  \"ratio\" : 1.10,\n  \"SSN\" : "
+                + "{\"v\":1,\"_enc\":{\"alg\":\"AES-256-GCM\",\"kid\":\"kid-1\",\"pt\":\"999-88-7777\"}} ,\n"
+                + "  \"name\": \"h\\u00e9llo é\",\n"
+                + "  \"list\": [ { \"email\" : {\"v\":1,\"_enc\":{\"alg\":\"AES-256-GCM\",\"kid\":\"kid-1\",\"pt\":[\"a@b.c\",2.5]}} },"
+                + " {\"secretCode\":{\"v\":1,\"_enc\":{\"alg\":\"AES-256-GCM\",\"kid\":\"kid-1\",\"pt\":true}}} ],\n"
+                + "  \"legacy\": { \"ssn\": { \"v\": 1, \"_enc\": { \"alg\": \"x\" } } },\n"
+                + "  \"tail\": -7\n}\n";
+        assertEquals(expected, CryptoTestSupport.decryptEnvelopesInPlace(out, key, "doc-1"));
+    }
+
+    @Test
+    void encryptsSameValuesAsTreeEncryptor() throws Exception {
+        SecretKey key = CryptoTestSupport.deterministicAes256Key();
+        List<String> keys = List.of("ssn", "phone");
+        KeyScanPiiEncryptor tree = new KeyScanPiiEncryptor(
+                new Encryptor(key, "kid-1", CryptoTestSupport.deterministicSecureRandom()), keys, null, mapper);
+        SplicingPiiEncryptor splicing = new SplicingPiiEncryptor(
+                new Encryptor(key, "kid-1", CryptoTestSupport.deterministicSecureRandom()), keys, null, mapper);
+
+        byte[] input = "{\"a\":[{\"ssn\":{\"x\":[1,2.0]}}],\"b\":{\"phone\":\"+1\"},\"c\":3}".getBytes(StandardCharsets.UTF_8);
+        assertEquals(
+                CryptoTestSupport.decryptEnvelopesInPlace(tree.encrypt(input, "doc-2"), key, "doc-2"),
+                CryptoTestSupport.decryptEnvelopesInPlace(splicing.encrypt(input, "doc-2"), key, "doc-2"));
+    }
+
+    @Test
+    void returnsSameInstance_whenNothingMatches() {
+        SplicingPiiEncryptor splicing = new SplicingPiiEncryptor(
+                new Encryptor(CryptoTestSupport.deterministicAes256Key(), "kid-1", CryptoTestSupport.deterministicSecureRandom()),
+                List.of("ssn"),
+                null,
+                mapper);
+
+        byte[] input = "{ \"name\": \"alice\", \"ssn\": { \"_enc\": {} } }".getBytes(StandardCharsets.UTF_8);
+        assertSame(input, splicing.encrypt(input, "doc-1"));
+    }
+
+    @Test
+    void invalidJson_isRejected() {
+        SplicingPiiEncryptor splicing = new SplicingPiiEncryptor(
+                new Encryptor(CryptoTestSupport.deterministicAes256Key(), "kid-1", CryptoTestSupport.deterministicSecureRandom()),
+                List.of("ssn"),
+                null,
+                mapper);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> splicing.encrypt("{\"ssn\": [1, ".getBytes(StandardCharsets.UTF_8), "doc-1"));
+    }
+}
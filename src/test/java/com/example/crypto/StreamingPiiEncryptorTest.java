@@ -0,0 +1,96 @@
+package com.example.crypto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.regex.Pattern;
+import javax.crypto.SecretKey;
+import org.junit.jupiter.api.Test;
+
+class StreamingPiiEncryptorTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void producesSameDocumentAsTreeEncryptor() throws Exception {
+        SecretKey key = CryptoTestSupport.deterministicAes256Key();
+        List<String> keys = List.of("ssn", "email", "phone");
+        Pattern regex = Pattern.compile(".*secret.*", Pattern.CASE_INSENSITIVE);
+        KeyScanPiiEncryptor tree = new KeyScanPiiEncryptor(
+                new Encryptor(key, "kid-1", CryptoTestSupport.deterministicSecureRandom()), keys, regex, mapper);
+        StreamingPiiEncryptor streaming = new StreamingPiiEncryptor(
+                new Encryptor(key, "kid-1", CryptoTestSupport.deterministicSecureRandom()), keys, regex, mapper);
+
+        String json = """
+                {
+                  "tenant": "t\\u00e9",
+                  "ratio": 1.10,
+                  "big": 123456789012345678901234567890,
+                  "exp": 1e5,
+                  "profile": {
+                    "SSN": "999-88-7777",
+                    "email": ["bob@example.com", { "alt": 2.50 }],
+                    "address": { "city": "NY", "zip": 10001, "geo": [40.70, -74.0] }
+                  },
+                  "accounts": [
+                    { "phone": null, "meta": { "secretCode": 3.0 } },
+                    { "meta": { "secretToken": { "k": 1, "v": true } } },
+                    { "ssn": { "v": 1, "_enc": { "alg": "legacy", "kid": "legacy", "iv": "iv", "ct": "ct" } } }
+                  ]
+                }
+                """;
+        byte[] input = json.getBytes(StandardCharsets.UTF_8);
+
+        String treeOut = CryptoTestSupport.decryptEnvelopesInPlace(tree.encrypt(input, "doc-1"), key, "doc-1");
+        String streamingOut = CryptoTestSupport.decryptEnvelopesInPlace(streaming.encrypt(input, "doc-1"), key, "doc-1");
+
+        assertEquals(treeOut, streamingOut);
+        assertTrue(streamingOut.contains("\"iv\":\"iv\""), "already-encrypted envelope must be preserved");
+    }
+
+    @Test
+    void returnsSameInstance_whenNothingMatches() {
+        StreamingPiiEncryptor streaming = new StreamingPiiEncryptor(
+                new Encryptor(CryptoTestSupport.deterministicAes256Key(), "kid-1", CryptoTestSupport.deterministicSecureRandom()),
+                List.of("ssn"),
+                null,
+                mapper);
+
+        byte[] input = "{ \"name\": \"alice\", \"tags\": [1, 2] }".getBytes(StandardCharsets.UTF_8);
+        assertSame(input, streaming.encrypt(input, "doc-1"));
+
+        byte[] scalar = "\"ssn\"".getBytes(StandardCharsets.UTF_8);
+        assertSame(scalar, streaming.encrypt(scalar, "doc-1"));
+    }
+
+    @Test
+    void encryptsTopLevelArrayElementsFields() throws Exception {
+        SecretKey key = CryptoTestSupport.deterministicAes256Key();
+        StreamingPiiEncryptor streaming = new StreamingPiiEncryptor(
+                new Encryptor(key, "kid-1", CryptoTestSupport.deterministicSecureRandom()), List.of("ssn"), null, mapper);
+
+        byte[] out = streaming.encrypt("[{\"ssn\":\"1\"},{\"ssn\":[\"2\"]}]".getBytes(StandardCharsets.UTF_8), "doc-2");
+        JsonNode root = mapper.readTree(out);
+        assertTrue(root.at("/0/ssn/_enc").isObject());
+        assertTrue(root.at("/1/ssn/_enc").isObject());
+        assertFalse(new String(out, StandardCharsets.UTF_8).contains("\"2\""));
+    }
+
+    @Test
+    void invalidJson_isRejected() {
+        StreamingPiiEncryptor streaming = new StreamingPiiEncryptor(
+                new Encryptor(CryptoTestSupport.deterministicAes256Key(), "kid-1", CryptoTestSupport.deterministicSecureRandom()),
+                List.of("ssn"),
+                null,
+                mapper);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> streaming.encrypt("{\"ssn\": ".getBytes(StandardCharsets.UTF_8), "doc-1"));
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.migrate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class CompletionWatermarkTest {
+    @Test
+    void inOrderCompletions_advanceEachTime() {
+        CompletionWatermark watermark = new CompletionWatermark();
+
+        assertEquals("a", watermark.complete(0, "a"));
+        assertEquals("b", watermark.complete(1, "b"));
+        assertEquals("b", watermark.watermark());
+    }
+
+    @Test
+    void outOfOrderCompletions_waitForTheGapThenJumpPastIt() {
+        CompletionWatermark watermark = new CompletionWatermark();
+
+        assertNull(watermark.complete(1, "b"));
+        assertNull(watermark.complete(2, "c"));
+        assertNull(watermark.watermark());
+        assertEquals(2, watermark.pending());
+
+        assertEquals("c", watermark.complete(0, "a"));
+        assertEquals(0, watermark.pending());
+        assertNull(watermark.complete(4, "e"));
+        assertEquals("c", watermark.watermark());
+    }
+
+    @Test
+    void completingTwice_isRejected() {
+        CompletionWatermark watermark = new CompletionWatermark();
+        watermark.complete(0, "a");
+        watermark.complete(2, "c");
+
+        assertThrows(IllegalStateException.class, () -> watermark.complete(0, "a"));
+        assertThrows(IllegalStateException.class, () -> watermark.complete(2, "c"));
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.migrate;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.couchbase.client.core.error.DocumentNotFoundException;
+import com.couchbase.client.core.error.DurabilityAmbiguousException;
+import com.couchbase.client.core.error.TemporaryFailureException;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.Test;
+
+class ErrorClassifierTest {
+    @Test
+    void timeoutsAndTemporaryFailures_areOverload_evenWhenWrapped() {
+        assertTrue(ErrorClassifier.isOverload(new MigrationJob.StageException("GET", new TimeoutException())));
+        assertTrue(ErrorClassifier.isOverload(new MigrationJob.StageException("UPSERT", new TemporaryFailureException(null))));
+    }
+
+    @Test
+    void otherErrors_areNotOverload() {
+        assertFalse(ErrorClassifier.isOverload(new MigrationJob.StageException("ENCRYPT", new IllegalArgumentException())));
+        assertFalse(ErrorClassifier.isOverload(null));
+    }
+
+    @Test
+    void ambiguousDurableWrites_areTransientButNotOverload() {
+        Throwable ambiguous = new MigrationJob.StageException("UPSERT", new DurabilityAmbiguousException(null));
+
+        assertTrue(ErrorClassifier.isTransient(ambiguous));
+        assertFalse(ErrorClassifier.isOverload(ambiguous));
+        assertTrue(ErrorClassifier.isTransient(new TimeoutException()));
+        assertFalse(ErrorClassifier.isTransient(new MigrationJob.StageException("GET", new DocumentNotFoundException(null))));
+    }
+}
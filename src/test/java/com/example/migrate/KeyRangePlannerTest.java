@@ -0,0 +1,67 @@
+package com.example.migrate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class KeyRangePlannerTest {
+    @Test
+    void explicitBoundaries_produceContiguousRangesCoveringKeySpace() {
+        List<KeyRange> ranges = KeyRangePlanner.explicit(List.of("g", "p")).plan(null).block();
+
+        assertEquals(List.of(new KeyRange(null, "g"), new KeyRange("g", "p"), new KeyRange("p", null)), ranges);
+        assertTrue(ranges.get(0).contains("a"));
+        assertFalse(ranges.get(0).contains("g"));
+        assertTrue(ranges.get(1).contains("g"));
+        assertTrue(ranges.get(2).contains("zzz"));
+    }
+
+    @Test
+    void explicitBoundaries_mustBeStrictlyIncreasing() {
+        assertThrows(IllegalArgumentException.class, () -> KeyRangePlanner.explicit(List.of("p", "g")));
+        assertThrows(IllegalArgumentException.class, () -> KeyRangePlanner.explicit(List.of("g", "g")));
+    }
+
+    @Test
+    void singlePlanner_returnsWholeKeySpace() {
+        assertEquals(List.of(KeyRange.all()), KeyRangePlanner.single().plan(null).block());
+        assertEquals(List.of(KeyRange.all()), KeyRangePlanner.sampling(1, 0).plan(null).block());
+    }
+
+    @Test
+    void splitAtQuantiles_picksEvenlySpacedSampledKeys() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            ids.add(String.format("doc-%03d", i));
+        }
+        Collections.shuffle(ids);
+
+        List<KeyRange> ranges = KeyRangePlanner.splitAtQuantiles(ids, 4);
+
+        assertEquals(List.of(
+                new KeyRange(null, "doc-025"),
+                new KeyRange("doc-025", "doc-050"),
+                new KeyRange("doc-050", "doc-075"),
+                new KeyRange("doc-075", null)), ranges);
+    }
+
+    @Test
+    void splitAtQuantiles_collapsesDuplicateAndEmptySamples() {
+        assertEquals(List.of(KeyRange.all()), KeyRangePlanner.splitAtQuantiles(List.of(), 4));
+        assertEquals(List.of(new KeyRange(null, "b"), new KeyRange("b", null)),
+                KeyRangePlanner.splitAtQuantiles(List.of("a", "b", "b", "b"), 4));
+    }
+
+    @Test
+    void keyOrder_isUnsignedUtf8() {
+        assertTrue(KeyRange.compareKeys("a", "é") < 0);
+        assertTrue(KeyRange.compareKeys("Z", "a") < 0);
+        assertTrue(KeyRange.compareKeys("ab", "abc") < 0);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.migrate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.couchbase.client.core.error.TemporaryFailureException;
+import com.example.ops.RetryBudget;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+class RetryPolicyTest {
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    @Test
+    void transientError_isRetriedUntilSuccess() {
+        RetryPolicy policy = RetryPolicy.create(3, Duration.ofMillis(1), Duration.ofMillis(5), 0.5, RetryBudget.unlimited());
+
+        String value = policy.apply(failingTimes(2, new TemporaryFailureException(null))).block(Duration.ofSeconds(5));
+
+        assertEquals("ok", value);
+        assertEquals(3, attempts.get());
+        assertEquals(2L, policy.metrics().get("retries"));
+    }
+
+    @Test
+    void exhaustedRetries_passOnTheLastError() {
+        RetryPolicy policy = RetryPolicy.create(2, Duration.ofMillis(1), Duration.ofMillis(5), 0.0, RetryBudget.unlimited());
+        TemporaryFailureException failure = new TemporaryFailureException(null);
+
+        RuntimeException thrown = assertThrows(
+                RuntimeException.class, () -> policy.apply(failingTimes(5, failure)).block(Duration.ofSeconds(5)));
+
+        assertSame(failure, thrown);
+        assertEquals(2, attempts.get());
+        assertEquals(1L, policy.metrics().get("exhausted"));
+    }
+
+    @Test
+    void permanentError_isNotRetried() {
+        RetryPolicy policy = RetryPolicy.create(5, Duration.ofMillis(1), Duration.ofMillis(5), 0.0, RetryBudget.unlimited());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> policy.apply(failingTimes(1, new IllegalArgumentException("bad"))).block(Duration.ofSeconds(5)));
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void spentBudget_stopsRetries() {
+        RetryPolicy policy = RetryPolicy.create(5, Duration.ofMillis(1), Duration.ofMillis(5), 0.0, RetryBudget.create(0.0, 0.0));
+
+        assertThrows(TemporaryFailureException.class,
+                () -> policy.apply(failingTimes(1, new TemporaryFailureException(null))).block(Duration.ofSeconds(5)));
+        assertEquals(1, attempts.get());
+        assertEquals(0L, policy.metrics().get("retries"));
+    }
+
+    private Mono<String> failingTimes(int failures, RuntimeException error) {
+        return Mono.defer(() -> attempts.incrementAndGet() <= failures ? Mono.error(error) : Mono.just("ok"));
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.migrate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class ScanBatchTunerTest {
+    @Test
+    void fixedLimits_neverChange() {
+        ScanBatchTuner tuner = ScanBatchTuner.fixed(100, 0);
+        for (int i = 0; i < 100; i++) {
+            tuner.recordItem(500, true);
+        }
+        tuner.endRound();
+
+        assertEquals(100, tuner.itemLimit());
+        assertEquals(0, tuner.byteLimit());
+        assertEquals(Long.MAX_VALUE, tuner.roundSize());
+    }
+
+    @Test
+    void starvedPipeline_growsBatchesUpToMax() {
+        ScanBatchTuner tuner = ScanBatchTuner.autoTune(50, 150, 1 << 20, 1000);
+
+        round(tuner, 100, 50, 1000);
+        assertEquals(100, tuner.itemLimit());
+        assertEquals(100_000, tuner.byteLimit());
+
+        round(tuner, 100, 50, 1000);
+        assertEquals(150, tuner.itemLimit());
+    }
+
+    @Test
+    void saturatedPipeline_shrinksBatchesToMin_andByteLimitIsCapped() {
+        ScanBatchTuner tuner = ScanBatchTuner.autoTune(40, 100, 8_000, 1000);
+
+        round(tuner, 100, 0, 1000);
+        assertEquals(30, tuner.itemLimit());
+        assertEquals(8_000, tuner.byteLimit());
+
+        for (int i = 0; i < 10; i++) {
+            round(tuner, 100, 0, 1000);
+        }
+        assertEquals(ScanBatchTuner.MIN_ITEMS, tuner.itemLimit());
+    }
+
+    @Test
+    void invalidSettings_areRejected() {
+        assertThrows(IllegalArgumentException.class, () -> ScanBatchTuner.fixed(-1, 0));
+        assertThrows(IllegalArgumentException.class, () -> ScanBatchTuner.autoTune(5, 100, 1000, 1000));
+        assertThrows(IllegalArgumentException.class, () -> ScanBatchTuner.autoTune(50, 40, 1000, 1000));
+        assertThrows(IllegalArgumentException.class, () -> ScanBatchTuner.autoTune(50, 100, 1000, 0));
+    }
+
+    private static void round(ScanBatchTuner tuner, int items, int starved, int bytes) {
+        for (int i = 0; i < items; i++) {
+            tuner.recordItem(bytes, i < starved);
+        }
+        tuner.endRound();
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.migrate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.ops.LatencyTracker;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+class SourceReaderTest {
+    private final AtomicInteger hedges = new AtomicInteger();
+    private final AtomicInteger wins = new AtomicInteger();
+
+    @Test
+    void fastPrimary_winsWithoutSendingHedge() {
+        String value = SourceReader.hedge(
+                        Mono.just("primary"),
+                        () -> Mono.just("backup"),
+                        Duration.ofMillis(50),
+                        hedges::incrementAndGet,
+                        wins::incrementAndGet)
+                .block(Duration.ofSeconds(5));
+
+        assertEquals("primary", value);
+        assertEquals(0, hedges.get());
+    }
+
+    @Test
+    void slowPrimary_isBeatenByHedge() {
+        String value = SourceReader.hedge(
+                        Mono.delay(Duration.ofSeconds(2)).thenReturn("primary"),
+                        () -> Mono.just("backup"),
+                        Duration.ofMillis(10),
+                        hedges::incrementAndGet,
+                        wins::incrementAndGet)
+                .block(Duration.ofSeconds(5));
+
+        assertEquals("backup", value);
+        assertEquals(1, hedges.get());
+        assertEquals(1, wins.get());
+    }
+
+    @Test
+    void failedHedge_isIgnored() {
+        String value = SourceReader.hedge(
+                        Mono.delay(Duration.ofMillis(100)).thenReturn("primary"),
+                        () -> Mono.error(new IllegalStateException("no replica")),
+                        Duration.ofMillis(10),
+                        hedges::incrementAndGet,
+                        wins::incrementAndGet)
+                .block(Duration.ofSeconds(5));
+
+        assertEquals("primary", value);
+        assertEquals(1, hedges.get());
+        assertEquals(0, wins.get());
+    }
+
+    @Test
+    void primaryError_isReported() {
+        Mono<String> hedged = SourceReader.hedge(
+                Mono.error(new IllegalArgumentException("boom")),
+                () -> Mono.just("backup"),
+                Duration.ofMillis(50),
+                hedges::incrementAndGet,
+                wins::incrementAndGet);
+
+        assertThrows(IllegalArgumentException.class, () -> hedged.block(Duration.ofSeconds(5)));
+        assertEquals(0, hedges.get());
+    }
+
+    @Test
+    void hedgedPrimaries_areStillSampled_soTheEstimateDoesNotDrop() {
+        LatencyTracker latency = LatencyTracker.create(0.5, 4);
+        for (int i = 0; i < 4; i++) {
+            latency.record(Duration.ofMillis(20).toNanos());
+        }
+        long before = latency.estimateNanos();
+
+        // Half the primaries answer at once, half would take 2s and lose to the hedge sent at the estimate.
+        for (int i = 0; i < 4; i++) {
+            Mono<String> primary = i % 2 == 0 ? Mono.just("primary") : Mono.delay(Duration.ofSeconds(2)).thenReturn("primary");
+            SourceReader.hedge(
+                            SourceReader.timed(primary, latency),
+                            () -> Mono.just("backup"),
+                            Duration.ofNanos(latency.estimateNanos()),
+                            hedges::incrementAndGet,
+                            wins::incrementAndGet)
+                    .block(Duration.ofSeconds(5));
+        }
+
+        assertEquals(2, wins.get());
+        assertTrue(latency.estimateNanos() >= before, "estimate dropped to " + latency.estimateNanos());
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.ops;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+
+class AdaptiveConcurrencyLimiterTest {
+    @Test
+    void fixedLimit_queuesCallersUntilPermitReleased() {
+        AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.fixed(1);
+        AdaptiveConcurrencyLimiter.Permit first = limiter.acquire().block(Duration.ofSeconds(1));
+        assertNotNull(first);
+
+        AtomicReference<AdaptiveConcurrencyLimiter.Permit> second = new AtomicReference<>();
+        limiter.acquire().subscribe(second::set);
+        assertEquals(null, second.get());
+
+        first.release();
+        assertNotNull(second.get());
+        assertEquals(1, limiter.inFlight());
+    }
+
+    @Test
+    void releasingTwice_hasNoEffect() {
+        AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.fixed(2);
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire().block(Duration.ofSeconds(1));
+        permit.release();
+        permit.releaseDropped();
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void cancelledWaiter_doesNotLeakPermit() {
+        AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.fixed(1);
+        AdaptiveConcurrencyLimiter.Permit first = limiter.acquire().block(Duration.ofSeconds(1));
+
+        Disposable waiting = limiter.acquire().subscribe();
+        waiting.dispose();
+        first.release();
+
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void adaptive_growsWhileLatencyStable_upToCeiling() {
+        AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.adaptive(2, 1, 4);
+        for (int i = 0; i < 200; i++) {
+            AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire().block(Duration.ofSeconds(1));
+            permit.recordLatency(1_000_000);
+            permit.release();
+        }
+        assertEquals(4, limiter.limit());
+    }
+
+    @Test
+    void adaptive_shrinksOnDrops_butNotBelowMin() {
+        AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.adaptive(10, 3, 10);
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire().block(Duration.ofSeconds(1));
+        permit.releaseDropped();
+        assertEquals(9, limiter.limit());
+
+        for (int i = 0; i < 100; i++) {
+            AdaptiveConcurrencyLimiter.Permit p = limiter.acquire().block(Duration.ofSeconds(1));
+            p.releaseDropped();
+        }
+        assertTrue(limiter.limit() >= 3);
+        assertEquals(101L, limiter.metrics().get("drops"));
+    }
+
+    @Test
+    void adaptive_shrinksWhenLatencySpikes() {
+        AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.adaptive(8, 1, 8);
+        for (int i = 0; i < 50; i++) {
+            AdaptiveConcurrencyLimiter.Permit p = limiter.acquire().block(Duration.ofSeconds(1));
+            p.recordLatency(1_000);
+            p.release();
+        }
+        int before = limiter.limit();
+        for (int i = 0; i < 10; i++) {
+            AdaptiveConcurrencyLimiter.Permit p = limiter.acquire().block(Duration.ofSeconds(1));
+            p.recordLatency(1_000_000);
+            p.release();
+        }
+        assertTrue(limiter.limit() < before, "limit=" + limiter.limit());
+        assertFalse(limiter.metrics().get("decreases").equals(0L));
+    }
+
+    @Test
+    void invalidBounds_areRejected() {
+        assertThrows(IllegalArgumentException.class, () -> AdaptiveConcurrencyLimiter.adaptive(5, 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> AdaptiveConcurrencyLimiter.adaptive(11, 1, 10));
+        assertThrows(IllegalArgumentException.class, () -> AdaptiveConcurrencyLimiter.fixed(0));
+    }
+}
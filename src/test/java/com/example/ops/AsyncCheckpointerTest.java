@@ -0,0 +1,77 @@
+package com.example.ops;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AsyncCheckpointerTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void publishesAreCoalesced_andFlushWritesTheLatest() {
+        CheckpointStore store = new CheckpointStore(tempDir.resolve("checkpoint.json"));
+        try (AsyncCheckpointer checkpointer = AsyncCheckpointer.start(
+                store, Duration.ofHours(1), AsyncCheckpointer.FsyncPolicy.NEVER, Duration.ZERO)) {
+            for (int i = 1; i <= 100; i++) {
+                checkpointer.publish(new CheckpointStore.Checkpoint("doc-" + i, i, 0, i, 0));
+            }
+            checkpointer.flush();
+
+            assertEquals("doc-100", store.load().orElseThrow().lastSuccessfulDocId());
+            assertTrue((long) checkpointer.metrics().get("writes") <= 2);
+            assertEquals(1L, checkpointer.metrics().get("forcedWrites"));
+        }
+    }
+
+    @Test
+    void writerSavesInTheBackground() throws Exception {
+        CheckpointStore store = new CheckpointStore(tempDir.resolve("checkpoint.json"));
+        try (AsyncCheckpointer checkpointer = AsyncCheckpointer.start(
+                store, Duration.ZERO, AsyncCheckpointer.FsyncPolicy.ALWAYS, Duration.ZERO)) {
+            checkpointer.publish(new CheckpointStore.Checkpoint("doc-1", 1, 0, 1, 0));
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (store.load().isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals("doc-1", store.load().orElseThrow().lastSuccessfulDocId());
+        }
+    }
+
+    @Test
+    void closeFlushesPendingCheckpoint() {
+        CheckpointStore store = new CheckpointStore(tempDir.resolve("checkpoint.json"));
+        AsyncCheckpointer checkpointer = AsyncCheckpointer.start(
+                store, Duration.ofHours(1), AsyncCheckpointer.FsyncPolicy.INTERVAL, Duration.ofHours(1));
+        checkpointer.publish(new CheckpointStore.Checkpoint("doc-1", 1, 0, 1, 0));
+        checkpointer.publish(new CheckpointStore.Checkpoint("doc-2", 2, 0, 2, 0));
+
+        checkpointer.close();
+
+        assertEquals("doc-2", store.load().orElseThrow().lastSuccessfulDocId());
+        assertThrows(IllegalStateException.class,
+                () -> checkpointer.publish(new CheckpointStore.Checkpoint("doc-3", 3, 0, 3, 0)));
+    }
+
+    @Test
+    void writeFailure_isRethrownToCaller() throws Exception {
+        Path blocked = tempDir.resolve("blocked");
+        Files.createDirectories(blocked.resolve("checkpoint.json").resolve("child"));
+        CheckpointStore store = new CheckpointStore(blocked.resolve("checkpoint.json"));
+        try (AsyncCheckpointer checkpointer = AsyncCheckpointer.start(
+                store, Duration.ofHours(1), AsyncCheckpointer.FsyncPolicy.ALWAYS, Duration.ZERO)) {
+            checkpointer.publish(new CheckpointStore.Checkpoint("doc-1", 1, 0, 1, 0));
+            assertThrows(IllegalStateException.class, checkpointer::flush);
+        } catch (IllegalStateException expectedOnClose) {
+            // close() flushes again and reports the same failure.
+        }
+    }
+}
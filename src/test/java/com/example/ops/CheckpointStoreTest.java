@@ -4,10 +4,12 @@ import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
@@ -38,6 +40,79 @@ class CheckpointStoreTest {
         assertEquals(checkpoint, loaded.get());
     }
 
+    @Test
+    void loadsCheckpointWrittenBeforePrefilteredCounter() throws Exception {
+        Path path = tempDir.resolve("checkpoint.json");
+        Files.writeString(path, "{\"lastSuccessfulDocId\":\"doc-7\",\"scanned\":7,\"encrypted\":3,\"written\":7,\"quarantined\":0}");
+
+        Optional<CheckpointStore.Checkpoint> loaded = new CheckpointStore(path).load();
+
+        assertTrue(loaded.isPresent());
+        assertEquals(new CheckpointStore.Checkpoint("doc-7", 7, 3, 7, 0, 0), loaded.get());
+    }
+
+    @Test
+    void saveThenLoad_roundTripsPartitionCursors() {
+        Path path = tempDir.resolve("checkpoint.json");
+        CheckpointStore store = new CheckpointStore(path);
+        CheckpointStore.Checkpoint checkpoint = CheckpointStore.Checkpoint.of(List.of(
+                new CheckpointStore.Partition(null, "m", "doc-c", CheckpointStore.PartitionStatus.COMPLETE, 6, 1, 6, 0, 0),
+                new CheckpointStore.Partition("m", null, "doc-x", CheckpointStore.PartitionStatus.IN_PROGRESS,
+                        4, 1, 3, 1, 0, List.of("doc-q"))));
+
+        store.save(checkpoint);
+
+        CheckpointStore.Checkpoint loaded = store.load().orElseThrow();
+        assertEquals(checkpoint, loaded);
+        assertEquals(CheckpointStore.Checkpoint.CURRENT_VERSION, loaded.version());
+        assertEquals(10, loaded.scanned());
+        assertEquals(1, loaded.quarantined());
+        assertEquals(List.of("doc-q"), loaded.partitions().get(1).quarantinedIds());
+        assertTrue(loaded.partitions().get(0).quarantinedIds().isEmpty());
+    }
+
+    @Test
+    void upgradesV1PartitionCursors_keepingBoundsAndTotals() throws Exception {
+        Path path = tempDir.resolve("checkpoint.json");
+        Files.writeString(path, "{\"lastSuccessfulDocId\":null,\"scanned\":9,\"encrypted\":2,\"written\":8,"
+                + "\"quarantined\":1,\"prefiltered\":0,\"partitions\":["
+                + "{\"startInclusive\":null,\"endExclusive\":\"m\",\"lastSuccessfulDocId\":\"doc-c\"},"
+                + "{\"startInclusive\":\"m\",\"endExclusive\":null,\"lastSuccessfulDocId\":null}]}");
+
+        CheckpointStore.Checkpoint loaded = new CheckpointStore(path).load().orElseThrow();
+
+        assertEquals(2, loaded.version());
+        assertEquals(2, loaded.partitions().size());
+        assertEquals("doc-c", loaded.partitions().get(0).lastSuccessfulDocId());
+        assertEquals("m", loaded.partitions().get(1).startInclusive());
+        assertEquals(CheckpointStore.PartitionStatus.IN_PROGRESS, loaded.partitions().get(1).status());
+        assertEquals(9, loaded.scanned());
+        assertEquals(8, loaded.written());
+    }
+
+    @Test
+    void upgradesV1SingleCursor_toOneWholeRangePartition() throws Exception {
+        Path path = tempDir.resolve("checkpoint.json");
+        Files.writeString(path, "{\"lastSuccessfulDocId\":\"doc-7\",\"scanned\":7,\"encrypted\":3,\"written\":7,\"quarantined\":0}");
+
+        CheckpointStore.Checkpoint loaded = new CheckpointStore(path).load().orElseThrow();
+
+        assertEquals(1, loaded.partitions().size());
+        CheckpointStore.Partition partition = loaded.partitions().get(0);
+        assertEquals(null, partition.startInclusive());
+        assertEquals(null, partition.endExclusive());
+        assertEquals("doc-7", partition.lastSuccessfulDocId());
+        assertEquals(7, partition.scanned());
+    }
+
+    @Test
+    void newerSchemaVersion_isRejected() throws Exception {
+        Path path = tempDir.resolve("checkpoint.json");
+        Files.writeString(path, "{\"version\":3,\"scanned\":0,\"encrypted\":0,\"written\":0,\"quarantined\":0}");
+
+        assertThrows(IllegalStateException.class, () -> new CheckpointStore(path).load());
+    }
+
     @Test
     void saveIsAtomicEnoughForConcurrentReaders_neverSeesCorruptJson() throws Exception {
         Path path = tempDir.resolve("checkpoint.json");
@@ -0,0 +1,123 @@
+package com.example.ops;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class CircuitBreakerTest {
+    private static final CircuitBreaker.Settings SETTINGS = new CircuitBreaker.Settings(
+            10, 4, 50.0, Duration.ofSeconds(1), 100.0, Duration.ofMillis(100), 1);
+
+    @Test
+    void failures_openBreaker_thenProbeClosesItAndReleasesHeldCalls() throws Exception {
+        CircuitBreaker breaker = CircuitBreaker.create("upsert", SETTINGS, e -> e instanceof IllegalStateException);
+        failTimes(breaker, 4, new IllegalStateException("down"));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+
+        CompletableFuture<String> probe = breaker.guard(Mono.just("probe")).toFuture();
+        CompletableFuture<String> held = breaker.guard(Mono.just("held")).toFuture();
+        assertFalse(probe.isDone());
+
+        assertEquals("probe", probe.get(5, TimeUnit.SECONDS));
+        assertEquals("held", held.get(5, TimeUnit.SECONDS));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        assertEquals(3, ((List<?>) breaker.metrics().get("transitions")).size());
+        assertEquals(2L, breaker.metrics().get("heldCalls"));
+    }
+
+    @Test
+    void failedProbe_reopensBreaker() throws Exception {
+        CircuitBreaker breaker = CircuitBreaker.create("get", SETTINGS, e -> true);
+        failTimes(breaker, 4, new IllegalStateException("down"));
+
+        CompletableFuture<Object> probe = breaker.guard(Mono.error(new IllegalStateException("still down"))).toFuture();
+
+        assertThrows(ExecutionException.class, () -> probe.get(5, TimeUnit.SECONDS));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertEquals(2L, breaker.metrics().get("opened"));
+    }
+
+    @Test
+    void probeFromAnEarlierHalfOpenPeriod_doesNotCount() throws Exception {
+        CircuitBreaker.Settings twoProbes = new CircuitBreaker.Settings(
+                10, 4, 50.0, Duration.ofSeconds(10), 100.0, Duration.ofMillis(100), 2);
+        CircuitBreaker breaker = CircuitBreaker.create("get", twoProbes, e -> true);
+        failTimes(breaker, 4, new IllegalStateException("down"));
+
+        // Both are admitted as probes of the first half-open period; the failure re-opens while the other still runs.
+        Sinks.One<String> stale = Sinks.one();
+        CompletableFuture<String> staleProbe = breaker.guard(stale.asMono()).toFuture();
+        CompletableFuture<Object> failedProbe = breaker.guard(Mono.error(new IllegalStateException("still down"))).toFuture();
+        assertThrows(ExecutionException.class, () -> failedProbe.get(5, TimeUnit.SECONDS));
+        assertEquals(2L, breaker.metrics().get("opened"));
+
+        awaitState(breaker, CircuitBreaker.State.HALF_OPEN);
+        Sinks.One<String> current = Sinks.one();
+        CompletableFuture<String> currentProbe = breaker.guard(current.asMono()).toFuture();
+        stale.tryEmitValue("stale");
+        current.tryEmitValue("current");
+
+        assertEquals("stale", staleProbe.get(5, TimeUnit.SECONDS));
+        assertEquals("current", currentProbe.get(5, TimeUnit.SECONDS));
+        // One of the two probes this period needs has succeeded; the stale one does not make up the difference.
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+        assertEquals("second", breaker.guard(Mono.just("second")).block(Duration.ofSeconds(5)));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void errorsOutsideThePredicate_doNotCount() {
+        CircuitBreaker breaker = CircuitBreaker.create("get", SETTINGS, e -> e instanceof IllegalStateException);
+        failTimes(breaker, 10, new IllegalArgumentException("not found"));
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void slowCalls_openBreaker() {
+        CircuitBreaker.Settings slow = new CircuitBreaker.Settings(
+                4, 2, 100.0, Duration.ofMillis(20), 50.0, Duration.ofSeconds(10), 1);
+        CircuitBreaker breaker = CircuitBreaker.create("upsert", slow, e -> true);
+
+        breaker.guard(Mono.delay(Duration.ofMillis(50)).thenReturn(1)).block(Duration.ofSeconds(5));
+        breaker.guard(Mono.just(2)).block(Duration.ofSeconds(5));
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        Map<String, Object> metrics = breaker.metrics();
+        assertEquals("OPEN", metrics.get("state"));
+    }
+
+    @Test
+    void invalidSettings_areRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new CircuitBreaker.Settings(
+                10, 11, 50.0, Duration.ofSeconds(1), 100.0, Duration.ofSeconds(1), 1));
+        assertThrows(IllegalArgumentException.class, () -> new CircuitBreaker.Settings(
+                10, 5, 0.0, Duration.ofSeconds(1), 100.0, Duration.ofSeconds(1), 1));
+        assertThrows(IllegalArgumentException.class, () -> new CircuitBreaker.Settings(
+                10, 5, 50.0, Duration.ofSeconds(1), 100.0, Duration.ofSeconds(1), 0));
+    }
+
+    private static void awaitState(CircuitBreaker breaker, CircuitBreaker.State state) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (breaker.state() != state && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(state, breaker.state());
+    }
+
+    private static void failTimes(CircuitBreaker breaker, int times, RuntimeException error) {
+        for (int i = 0; i < times; i++) {
+            assertThrows(RuntimeException.class, () -> breaker.guard(Mono.error(error)).block(Duration.ofSeconds(5)));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.ops;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class CpuPoolTest {
+    @Test
+    void runsTasksOnPoolThreads() {
+        try (CpuPool pool = CpuPool.create("test-cpu", 2, 4)) {
+            String thread = pool.submit(() -> Thread.currentThread().getName()).block(Duration.ofSeconds(5));
+            assertTrue(thread.startsWith("test-cpu-"), thread);
+        }
+    }
+
+    @Test
+    void propagatesTaskExceptions() {
+        try (CpuPool pool = CpuPool.create("test-cpu", 1, 1)) {
+            IllegalStateException e = assertThrows(IllegalStateException.class,
+                    () -> pool.submit(() -> {
+                        throw new IllegalStateException("boom");
+                    }).block(Duration.ofSeconds(5)));
+            assertEquals("boom", e.getMessage());
+        }
+    }
+
+    @Test
+    void recordsTaskCountAndQueueWait() {
+        try (CpuPool pool = CpuPool.create("test-cpu", 1, 8)) {
+            List<Integer> results = Flux.range(0, 8)
+                    .flatMap(i -> pool.submit(() -> {
+                        Thread.sleep(5);
+                        return i;
+                    }), 8)
+                    .collectList()
+                    .block(Duration.ofSeconds(5));
+
+            assertEquals(8, results.size());
+            Map<String, Object> metrics = pool.metrics();
+            assertEquals(8L, metrics.get("tasks"));
+            assertTrue((Long) metrics.get("maxWaitMicros") > 0L, metrics.toString());
+            assertEquals(0, pool.queueDepth());
+        }
+    }
+
+    @Test
+    void maxQueueDepth_countsTheTaskJustQueued() throws Exception {
+        try (CpuPool pool = CpuPool.create("test-cpu", 1, 8)) {
+            CountDownLatch release = new CountDownLatch(1);
+            // The first task goes straight to the new worker thread and holds it; the next three queue behind it.
+            List<Mono<Boolean>> submitted = List.of(
+                    pool.submit(() -> release.await(5, TimeUnit.SECONDS)),
+                    pool.submit(() -> true),
+                    pool.submit(() -> true),
+                    pool.submit(() -> true));
+            Mono<Void> all = Mono.when(submitted).cache();
+            all.subscribe();
+
+            assertEquals(3, pool.queueDepth());
+            assertEquals(3, pool.metrics().get("maxQueueDepth"));
+            release.countDown();
+            all.block(Duration.ofSeconds(5));
+        }
+    }
+
+    @Test
+    void invalidSizes_areRejected() {
+        assertThrows(IllegalArgumentException.class, () -> CpuPool.create("x", 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> CpuPool.create("x", 1, 0));
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.ops;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class GracefulShutdownTest {
+    @Test
+    void shutdownAfterTheJobFinished_doesNothing() {
+        AtomicInteger stops = new AtomicInteger();
+        AtomicInteger timeouts = new AtomicInteger();
+        GracefulShutdown shutdown = GracefulShutdown.create(
+                Duration.ofSeconds(5), stops::incrementAndGet, timeouts::incrementAndGet);
+
+        shutdown.finished();
+        shutdown.onShutdown();
+
+        assertFalse(shutdown.requested());
+        assertEquals(0, stops.get());
+        assertEquals(0, timeouts.get());
+    }
+
+    @Test
+    void jobThatDrainsInTime_skipsTheTimeoutFallback() {
+        AtomicInteger timeouts = new AtomicInteger();
+        GracefulShutdown[] holder = new GracefulShutdown[1];
+        holder[0] = GracefulShutdown.create(
+                Duration.ofSeconds(5),
+                // The stopped job finishes on another thread, as the main thread would.
+                () -> new Thread(() -> holder[0].finished()).start(),
+                timeouts::incrementAndGet);
+
+        holder[0].onShutdown();
+
+        assertTrue(holder[0].requested());
+        assertEquals(0, timeouts.get());
+    }
+
+    @Test
+    void jobThatDoesNotDrain_runsTheTimeoutFallback() {
+        AtomicInteger stops = new AtomicInteger();
+        AtomicInteger timeouts = new AtomicInteger();
+        GracefulShutdown shutdown = GracefulShutdown.create(
+                Duration.ofMillis(20), stops::incrementAndGet, timeouts::incrementAndGet);
+
+        shutdown.onShutdown();
+
+        assertTrue(shutdown.requested());
+        assertEquals(1, stops.get());
+        assertEquals(1, timeouts.get());
+    }
+
+    @Test
+    void negativeDrainTimeout_isRejected() {
+        assertThrows(IllegalArgumentException.class, () -> GracefulShutdown.create(Duration.ofMillis(-1), () -> {
+        }, () -> {
+        }));
+    }
+}
@@ -6,6 +6,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
@@ -44,5 +45,55 @@ class KillSwitchTest {
         KillSwitch killSwitch = new KillSwitch(stopFile, true);
         assertThrows(KillSwitch.EngagedException.class, killSwitch::throwIfEngaged);
     }
-}
 
+    @Test
+    void startedKillSwitch_picksUpCreationAndDeletion() throws Exception {
+        Path stopFile = tempDir.resolve("stop");
+        try (KillSwitch killSwitch = new KillSwitch(stopFile, true).start(Duration.ofMillis(20))) {
+            assertFalse(killSwitch.engaged());
+
+            Files.writeString(stopFile, "x");
+            assertTrue(awaitEngaged(killSwitch, true));
+
+            Files.delete(stopFile);
+            assertTrue(awaitEngaged(killSwitch, false));
+        }
+    }
+
+    @Test
+    void startedKillSwitch_pollsWhenTheDirectoryCannotBeWatched() throws Exception {
+        Path stopFile = tempDir.resolve("later").resolve("stop");
+        try (KillSwitch killSwitch = new KillSwitch(stopFile, true).start(Duration.ofMillis(20))) {
+            Files.createDirectories(stopFile.getParent());
+            Files.writeString(stopFile, "x");
+            assertTrue(awaitEngaged(killSwitch, true));
+        }
+    }
+
+    @Test
+    void startedDisabledKillSwitch_neverEngages() throws Exception {
+        Path stopFile = tempDir.resolve("stop");
+        Files.writeString(stopFile, "x");
+        try (KillSwitch killSwitch = new KillSwitch(stopFile, false).start(Duration.ofMillis(20))) {
+            assertFalse(killSwitch.engaged());
+        }
+    }
+
+    @Test
+    void invalidPollInterval_isRejected() {
+        KillSwitch killSwitch = new KillSwitch(tempDir.resolve("stop"), true);
+        assertThrows(IllegalArgumentException.class, () -> killSwitch.start(Duration.ZERO));
+        assertFalse(killSwitch.engaged());
+    }
+
+    private static boolean awaitEngaged(KillSwitch killSwitch, boolean expected) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (System.nanoTime() < deadline) {
+            if (killSwitch.engaged() == expected) {
+                return true;
+            }
+            Thread.sleep(5);
+        }
+        return false;
+    }
+}
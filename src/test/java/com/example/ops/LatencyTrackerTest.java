@@ -0,0 +1,40 @@
+package com.example.ops;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyTrackerTest {
+    @Test
+    void reportsNothingUntilWindowFills() {
+        LatencyTracker tracker = LatencyTracker.create(0.9, 10);
+        for (int i = 0; i < 9; i++) {
+            tracker.record(i);
+        }
+        assertEquals(-1L, tracker.estimateNanos());
+
+        tracker.record(9);
+        assertEquals(9L, tracker.estimateNanos());
+    }
+
+    @Test
+    void quantileFollowsTheSlidingWindow() {
+        LatencyTracker tracker = LatencyTracker.create(0.5, 100);
+        for (int i = 1; i <= 100; i++) {
+            tracker.record(i);
+        }
+        assertEquals(51L, tracker.estimateNanos());
+
+        for (int i = 0; i < 100; i++) {
+            tracker.record(1_000);
+        }
+        assertEquals(1_000L, tracker.estimateNanos());
+    }
+
+    @Test
+    void invalidSettings_areRejected() {
+        assertThrows(IllegalArgumentException.class, () -> LatencyTracker.create(1.0, 10));
+        assertThrows(IllegalArgumentException.class, () -> LatencyTracker.create(0.5, 0));
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.ops;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class QuarantineLogTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void records_areReadBackInOrder_acrossRolledSegments() throws Exception {
+        try (QuarantineLog log = QuarantineLog.open(tempDir, 512, 16)) {
+            for (int i = 0; i < 50; i++) {
+                log.record("doc-" + i, "UPSERT", new IllegalStateException("boom " + i));
+            }
+        }
+
+        assertTrue(QuarantineLog.segments(tempDir).size() > 1);
+        List<QuarantineLog.Entry> entries = readAll(tempDir);
+        assertEquals(50, entries.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals("doc-" + i, entries.get(i).docId());
+            assertEquals("UPSERT", entries.get(i).stage());
+            assertTrue(entries.get(i).details().contains("exceptionClass=java.lang.IllegalStateException"));
+        }
+    }
+
+    @Test
+    void eachRun_startsANewSegment() throws Exception {
+        try (QuarantineLog log = QuarantineLog.open(tempDir, 1024 * 1024, 16)) {
+            log.record("first", "GET", new RuntimeException());
+        }
+        try (QuarantineLog log = QuarantineLog.open(tempDir, 1024 * 1024, 16)) {
+            log.record("second", "GET", new RuntimeException());
+        }
+
+        assertEquals(2, QuarantineLog.segments(tempDir).size());
+        assertEquals(List.of("first", "second"), readAll(tempDir).stream().map(QuarantineLog.Entry::docId).toList());
+    }
+
+    @Test
+    void tornRecord_endsItsSegment_andReadingContinues() throws Exception {
+        try (QuarantineLog log = QuarantineLog.open(tempDir, 1024 * 1024, 16)) {
+            log.record("a", "GET", new RuntimeException());
+            log.record("b", "GET", new RuntimeException());
+        }
+        Path first = QuarantineLog.segments(tempDir).get(0);
+        try (FileChannel channel = FileChannel.open(first, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        try (QuarantineLog log = QuarantineLog.open(tempDir, 1024 * 1024, 16)) {
+            log.record("c", "GET", new RuntimeException());
+        }
+
+        try (QuarantineLog.Reader reader = QuarantineLog.read(tempDir)) {
+            List<String> ids = new ArrayList<>();
+            reader.forEachRemaining(entry -> ids.add(entry.docId()));
+            assertEquals(List.of("a", "c"), ids);
+            assertEquals(1, reader.skippedSegmentTails());
+        }
+    }
+
+    @Test
+    void corruptedRecord_failsItsChecksum() throws Exception {
+        try (QuarantineLog log = QuarantineLog.open(tempDir, 1024 * 1024, 16)) {
+            log.record("a", "GET", new RuntimeException());
+        }
+        Path segment = QuarantineLog.segments(tempDir).get(0);
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[bytes.length - 1] ^= 0x01;
+        Files.write(segment, bytes);
+
+        try (QuarantineLog.Reader reader = QuarantineLog.read(tempDir)) {
+            assertFalse(reader.hasNext());
+            assertEquals(1, reader.skippedSegmentTails());
+        }
+    }
+
+    @Test
+    void doesNotIncludeExceptionMessages() throws Exception {
+        try (QuarantineLog log = QuarantineLog.open(tempDir, 1024 * 1024, 16)) {
+            log.record("doc-1", "ENCRYPT", new RuntimeException("failed on {\"ssn\":\"123-45-6789\"}"));
+        }
+
+        String raw = Files.readString(QuarantineLog.segments(tempDir).get(0), StandardCharsets.ISO_8859_1);
+        assertFalse(raw.contains("123-45-6789"));
+        assertTrue(readAll(tempDir).get(0).details().contains("exceptionMessageSha256="));
+    }
+
+    @Test
+    void recordQueuedJustBeforeShutdown_isReadableAfterFlush() throws Exception {
+        QuarantineLog log = QuarantineLog.open(tempDir, 1024 * 1024, 16);
+        try {
+            log.record("last", "UPSERT", new RuntimeException());
+            // No close(): a halting JVM only gets as far as the shutdown path's flush.
+            log.flush();
+
+            assertEquals(List.of("last"), readAll(tempDir).stream().map(QuarantineLog.Entry::docId).toList());
+        } finally {
+            log.close();
+        }
+    }
+
+    @Test
+    void closingTwice_keepsQueuedRecords() throws Exception {
+        QuarantineLog log = QuarantineLog.open(tempDir, 1024 * 1024, 16);
+        log.record("doc", "GET", new RuntimeException());
+        log.close();
+        log.close();
+
+        assertEquals(1, readAll(tempDir).size());
+    }
+
+    @Test
+    void recordAfterClose_isRejected() {
+        QuarantineLog log = QuarantineLog.open(tempDir, 1024 * 1024, 16);
+        log.close();
+
+        assertThrows(IllegalStateException.class, () -> log.record("doc", "GET", new RuntimeException()));
+        assertEquals(0L, log.metrics().get("segments"));
+    }
+
+    private static List<QuarantineLog.Entry> readAll(Path dir) throws IOException {
+        List<QuarantineLog.Entry> entries = new ArrayList<>();
+        try (QuarantineLog.Reader reader = QuarantineLog.read(dir)) {
+            reader.forEachRemaining(entries::add);
+        }
+        return entries;
+    }
+}
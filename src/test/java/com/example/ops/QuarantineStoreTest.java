@@ -0,0 +1,115 @@
+package com.example.ops;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class QuarantineStoreTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void pendingIds_mergeTextFilesAndLogSegments_withoutDuplicates() {
+        QuarantineWriter writer = new QuarantineWriter(tempDir);
+        writer.write("doc-1", "GET", new RuntimeException());
+        writer.write("doc-2", "UPSERT", new RuntimeException());
+        try (QuarantineLog log = QuarantineLog.open(tempDir, 1024 * 1024, 16)) {
+            log.record("doc-2", "UPSERT", new RuntimeException());
+            log.record("doc-3", "ENCRYPT", new RuntimeException());
+        }
+
+        try (QuarantineStore store = QuarantineStore.open(tempDir)) {
+            List<String> pending = store.pendingIds();
+            assertEquals(3, pending.size());
+            assertTrue(pending.containsAll(List.of("doc-1", "doc-2", "doc-3")));
+            assertEquals(3L, store.metrics().get("quarantinedIds"));
+        }
+    }
+
+    @Test
+    void resolvedIds_areSkippedByTheNextReplay() throws Exception {
+        QuarantineWriter writer = new QuarantineWriter(tempDir);
+        writer.write("doc-1", "GET", new RuntimeException());
+        writer.write("doc-2", "GET", new RuntimeException());
+
+        // Read strictly after the records were written, so the resolution is newer than them.
+        long readAt = System.currentTimeMillis() + 1;
+        try (QuarantineStore store = QuarantineStore.open(tempDir, () -> readAt)) {
+            assertEquals(2, store.pendingIds().size());
+            store.markResolved("doc-1");
+            store.markResolved("doc-1");
+            assertEquals(1L, store.metrics().get("resolved"));
+        }
+
+        assertEquals(List.of(readAt + "\tdoc-1"), Files.readAllLines(tempDir.resolve(QuarantineStore.RESOLVED_FILE)));
+        try (QuarantineStore store = QuarantineStore.open(tempDir)) {
+            assertEquals(List.of("doc-2"), store.pendingIds());
+            assertEquals(1L, store.metrics().get("resolvedBefore"));
+        }
+    }
+
+    @Test
+    void idQuarantinedAgainAfterItWasResolved_isPendingAgain() throws Exception {
+        QuarantineWriter writer = new QuarantineWriter(tempDir);
+        writer.write("doc-1", "GET", new RuntimeException());
+        long readAt = System.currentTimeMillis() + 1;
+        try (QuarantineStore store = QuarantineStore.open(tempDir, () -> readAt)) {
+            assertEquals(List.of("doc-1"), store.pendingIds());
+            store.markResolved("doc-1");
+        }
+        try (QuarantineStore store = QuarantineStore.open(tempDir)) {
+            assertEquals(List.of(), store.pendingIds());
+        }
+
+        while (System.currentTimeMillis() < readAt) {
+            Thread.sleep(1);
+        }
+        try (QuarantineLog log = QuarantineLog.open(tempDir, 1024 * 1024, 16)) {
+            // A later migrate run fails the same document again.
+            log.record("doc-1", "UPSERT", new RuntimeException());
+        }
+
+        long replayedAt = System.currentTimeMillis() + 1;
+        try (QuarantineStore store = QuarantineStore.open(tempDir, () -> replayedAt)) {
+            assertEquals(List.of("doc-1"), store.pendingIds());
+            store.markResolved("doc-1");
+            assertEquals(1L, store.metrics().get("resolved"));
+        }
+        try (QuarantineStore store = QuarantineStore.open(tempDir)) {
+            assertEquals(List.of(), store.pendingIds());
+        }
+    }
+
+    @Test
+    void bareIdsFromOlderVersions_areReplayedOnceMore() throws Exception {
+        new QuarantineWriter(tempDir).write("doc-1", "GET", new RuntimeException());
+        Files.writeString(tempDir.resolve(QuarantineStore.RESOLVED_FILE), "doc-1\n");
+
+        try (QuarantineStore store = QuarantineStore.open(tempDir)) {
+            assertEquals(List.of("doc-1"), store.pendingIds());
+            assertEquals(1L, store.metrics().get("resolvedBefore"));
+        }
+    }
+
+    @Test
+    void idsWithLineBreaks_areNeverMarkedResolved() {
+        try (QuarantineStore store = QuarantineStore.open(tempDir)) {
+            store.markResolved("bad\nid");
+            assertEquals(0L, store.metrics().get("resolved"));
+        }
+        assertFalse(Files.exists(tempDir.resolve(QuarantineStore.RESOLVED_FILE)));
+    }
+
+    @Test
+    void missingDirectory_hasNothingPending() {
+        try (QuarantineStore store = QuarantineStore.open(tempDir.resolve("missing"))) {
+            assertEquals(List.of(), store.pendingIds());
+        }
+    }
+}
@@ -1,11 +1,13 @@
 package com.example.ops;
 
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTimeout;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.Duration;
 import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
 
 class RateLimiterTest {
     @Test
@@ -44,5 +46,55 @@ class RateLimiterTest {
             }
         });
     }
-}
 
+    @Test
+    void acquireAsync_delaysOnTimer_atConfiguredRate() {
+        RateLimiter limiter = RateLimiter.create(10.0); // 100ms/permit
+
+        long start = System.nanoTime();
+        Flux.range(0, 4)
+                .flatMap(i -> limiter.acquireAsync().thenReturn(i))
+                .blockLast(Duration.ofSeconds(2));
+        long elapsedMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        // Expected ~300ms for four permits with all reservations made up front.
+        assertTrue(elapsedMs >= 200, "elapsedMs=" + elapsedMs);
+    }
+
+    @Test
+    void acquireAsync_unlimited_completesImmediately() {
+        RateLimiter limiter = RateLimiter.unlimited();
+        assertTimeout(Duration.ofMillis(500), () -> {
+            for (int i = 0; i < 1000; i++) {
+                limiter.acquireAsync().block();
+            }
+        });
+    }
+
+    @Test
+    void burst_allowsBackToBackPermits_thenPaces() {
+        RateLimiter limiter = RateLimiter.create(5.0, 3); // 200ms/permit, bucket of 3
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire(), "bucket should be empty after the burst");
+    }
+
+    @Test
+    void weightedPermits_chargeProportionally() {
+        RateLimiter limiter = RateLimiter.create(10_000.0, 1_000); // e.g. 10 KB/s with a 1 KB burst
+
+        long start = System.nanoTime();
+        limiter.acquire(1_000); // burst
+        limiter.acquire(3_000); // ~300ms
+        long elapsedMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertTrue(elapsedMs >= 200, "elapsedMs=" + elapsedMs);
+    }
+
+    @Test
+    void invalidBurst_isRejected() {
+        assertThrows(IllegalArgumentException.class, () -> RateLimiter.create(10.0, 0));
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.ops;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class RetryBudgetTest {
+    @Test
+    void retriesAreLimitedToRatioOfRequests() {
+        RetryBudget budget = RetryBudget.create(0.1, 0.0);
+        for (int i = 0; i < 20; i++) {
+            budget.recordRequest();
+        }
+
+        assertTrue(budget.tryRetry());
+        assertTrue(budget.tryRetry());
+        assertFalse(budget.tryRetry());
+        assertEquals(2L, budget.metrics().get("allowed"));
+        assertEquals(1L, budget.metrics().get("denied"));
+    }
+
+    @Test
+    void balanceIsCapped() {
+        RetryBudget budget = RetryBudget.create(1.0, 0.0);
+        for (int i = 0; i < 1000; i++) {
+            budget.recordRequest();
+        }
+
+        for (int i = 0; i < RetryBudget.MAX_BALANCE; i++) {
+            assertTrue(budget.tryRetry());
+        }
+        assertFalse(budget.tryRetry());
+    }
+
+    @Test
+    void floorAllowsRetriesWithoutRequests() {
+        RetryBudget budget = RetryBudget.create(0.0, 1.0);
+
+        assertTrue(budget.tryRetry());
+        assertFalse(budget.tryRetry());
+    }
+
+    @Test
+    void invalidSettings_areRejected() {
+        assertThrows(IllegalArgumentException.class, () -> RetryBudget.create(-0.1, 0.0));
+        assertThrows(IllegalArgumentException.class, () -> RetryBudget.create(0.1, Double.NaN));
+    }
+}